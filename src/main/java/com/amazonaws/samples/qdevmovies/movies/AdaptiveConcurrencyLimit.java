@@ -0,0 +1,171 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit that adapts to observed latency, arrr!
+ * <p>
+ * Two moving averages of request latency are kept: a slow one that stands for the latency of a
+ * healthy ship and a fast one that tracks the last few requests. When the fast one climbs above
+ * the slow one, requests are queueing somewhere and the limit is cut in proportion (at most by
+ * half per sample); while they agree, the limit grows by roughly its square root, but only if the
+ * traffic is actually using the limit. When latency has been high for a long time the slow average
+ * drifts up to it and the limit recovers, and a sudden return to fast responses pulls the slow
+ * average back down.
+ * <p>
+ * Releases never wait for each other: each one adds its latency to striped counters, and the
+ * release that finds nobody else updating the limit folds in every sample recorded so far, as one
+ * window. Without contention that is every sample on its own; under load it is a handful at a time.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double SHORT_WINDOW_WEIGHT = 0.1;
+    private static final double LONG_WINDOW_WEIGHT = 0.002;
+    private static final double LATENCY_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder pendingSamples = new LongAdder();
+    private final LongAdder pendingLatencyNanos = new LongAdder();
+    private final LongAccumulator pendingInFlight = new LongAccumulator(Math::max, 0);
+    private final AtomicBoolean sampling = new AtomicBoolean();
+
+    private volatile double limit;
+    private double shortLatency;
+    private double longLatency;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits need 1 <= min <= max, got " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Claims a slot if fewer requests than the current limit are in flight.
+     *
+     * @return {@code true} if the request may go ahead, in which case {@link #release} must follow
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admitted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives the slot back and feeds the request's latency into the limit. Never blocks.
+     */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        pendingLatencyNanos.add(latencyNanos);
+        pendingInFlight.accumulate(inFlightBefore);
+        pendingSamples.increment();
+        if (!sampling.get() && sampling.compareAndSet(false, true)) {
+            try {
+                onSamples();
+            } finally {
+                sampling.set(false);
+            }
+        }
+    }
+
+    /**
+     * Folds the pending samples into the averages and the limit as if they came one by one with
+     * their mean latency. A sample recorded meanwhile may land half in this window and half in the
+     * next; the averages barely notice.
+     */
+    private void onSamples() {
+        long samples = pendingSamples.sumThenReset();
+        if (samples == 0) {
+            return;
+        }
+        double latencyNanos = (double) pendingLatencyNanos.sumThenReset() / samples;
+        long inFlightBefore = pendingInFlight.getThenReset();
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+        shortLatency += (latencyNanos - shortLatency) * weight(SHORT_WINDOW_WEIGHT, samples);
+        longLatency += (latencyNanos - longLatency) * weight(LONG_WINDOW_WEIGHT, samples);
+        if (longLatency > 2 * shortLatency) {
+            // responses got fast again; forget the slow period sooner
+            longLatency *= 0.95;
+        }
+
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, LATENCY_TOLERANCE * longLatency / shortLatency));
+        double target = current * gradient + Math.sqrt(current);
+        if (target > current && inFlightBefore < current / 2) {
+            // the traffic is not using the limit we already have, so there is nothing to learn
+            return;
+        }
+        double next = current + (target - current) * weight(SMOOTHING, samples);
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * The weight of {@code samples} equal samples in a moving average giving {@code weight} to one.
+     */
+    private static double weight(double weight, long samples) {
+        return samples == 1 ? weight : 1 - Math.pow(1 - weight, samples);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public Stats stats() {
+        return new Stats((int) limit, inFlight.get(), admitted.sum(), rejected.sum());
+    }
+
+    /**
+     * A snapshot of the limit and how many requests it let through or turned away.
+     */
+    public static final class Stats {
+        private final int limit;
+        private final int inFlight;
+        private final long admitted;
+        private final long rejected;
+
+        Stats(int limit, int inFlight, long admitted, long rejected) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.admitted = admitted;
+            this.rejected = rejected;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getAdmitted() {
+            return admitted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sheds load before it piles up on the Tomcat threads, arrr!
+ * <p>
+ * Every admission-controlled request is classified by {@link EndpointClass} and must claim a slot
+ * in that class's {@link AdaptiveConcurrencyLimit} before it runs. When the class is at its limit
+ * the request is turned away at once with a 503 and a {@code Retry-After} hint instead of waiting
+ * in line, and because every class has its own limit, a search storm leaves the lookups alone.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final Logger logger = LogManager.getLogger(AdmissionControlFilter.class);
+    private static final String REJECTED_MESSAGE =
+        "Avast! The ship be too crowded right now, matey. Try again in a moment!";
+
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+
+    @Autowired
+    public AdmissionControlFilter(MovieProperties properties) {
+        MovieProperties.Admission admission = properties.getAdmission();
+        this.enabled = admission.isEnabled();
+        this.retryAfterSeconds = Math.max(1, admission.getRetryAfterSeconds());
+        limits.put(EndpointClass.SEARCH, newLimit(admission.getSearch()));
+        limits.put(EndpointClass.LISTING, newLimit(admission.getListing()));
+        limits.put(EndpointClass.LOOKUP, newLimit(admission.getLookup()));
+    }
+
+    private static AdaptiveConcurrencyLimit newLimit(MovieProperties.Admission.Budget budget) {
+        return new AdaptiveConcurrencyLimit(budget.getInitialLimit(), budget.getMinLimit(), budget.getMaxLimit());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || WarmupRunner.isWarmup(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        EndpointClass endpointClass = EndpointClass.classify(request.getMethod(), path);
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            logger.debug("Shedding {} request to {}: limit {} reached", endpointClass, path, limit.getLimit());
+            reject(path, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    private void reject(String path, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (path.startsWith("/api/")) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(new JSONObject().put("error", REJECTED_MESSAGE).toString());
+        } else {
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(REJECTED_MESSAGE);
+        }
+    }
+
+    /**
+     * The current limit and counters of every endpoint class.
+     *
+     * @return the stats, or empty when admission control be disabled
+     */
+    public Optional<Map<EndpointClass, AdaptiveConcurrencyLimit.Stats>> getStats() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Map<EndpointClass, AdaptiveConcurrencyLimit.Stats> stats = new EnumMap<>(EndpointClass.class);
+        limits.forEach((endpointClass, limit) -> stats.put(endpointClass, limit.stats()));
+        return Optional.of(Collections.unmodifiableMap(stats));
+    }
+}
@@ -0,0 +1,107 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * What changed in the treasure chest from one catalog version to the next, by movie ID, arrr!
+ * A movie counts as updated when any of its fields, description included, differs between the two versions.
+ */
+public class CatalogChange {
+    private final long version;
+    private final long previousVersion;
+    private final String changedAt;
+    private final int movieCount;
+    private final List<Long> added;
+    private final List<Long> updated;
+    private final List<Long> removed;
+
+    CatalogChange(long version, long previousVersion, String changedAt, int movieCount,
+                  List<Long> added, List<Long> updated, List<Long> removed) {
+        this.version = version;
+        this.previousVersion = previousVersion;
+        this.changedAt = changedAt;
+        this.movieCount = movieCount;
+        this.added = Collections.unmodifiableList(added);
+        this.updated = Collections.unmodifiableList(updated);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Compares two catalogs movie by movie.
+     *
+     * @param changedAt When the newer catalog started being served, in ISO-8601
+     * @return the IDs added, updated and removed, each in catalog order
+     */
+    static CatalogChange between(MovieCatalog previous, MovieCatalog current, String changedAt) {
+        List<Long> added = new ArrayList<>();
+        List<Long> updated = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (Movie movie : current.getMovies()) {
+            Optional<Movie> before = previous.findById(movie.getId());
+            if (!before.isPresent()) {
+                added.add(movie.getId());
+            } else if (!sameTreasure(before.get(), movie)) {
+                updated.add(movie.getId());
+            }
+        }
+        for (Movie movie : previous.getMovies()) {
+            if (!current.findById(movie.getId()).isPresent()) {
+                removed.add(movie.getId());
+            }
+        }
+        return new CatalogChange(current.getVersion(), previous.getVersion(), changedAt, current.size(),
+            added, updated, removed);
+    }
+
+    private static boolean sameTreasure(Movie a, Movie b) {
+        return a.getYear() == b.getYear()
+            && a.getDuration() == b.getDuration()
+            && Double.compare(a.getImdbRating(), b.getImdbRating()) == 0
+            && Objects.equals(a.getMovieName(), b.getMovieName())
+            && Objects.equals(a.getDirector(), b.getDirector())
+            && Objects.equals(a.getGenre(), b.getGenre())
+            && a.hasSameDescription(b);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    public String getChangedAt() {
+        return changedAt;
+    }
+
+    /**
+     * @return the number of movies in the new version
+     */
+    public int getMovieCount() {
+        return movieCount;
+    }
+
+    public List<Long> getAdded() {
+        return added;
+    }
+
+    public List<Long> getUpdated() {
+        return updated;
+    }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return whether any movie was added, updated or removed
+     */
+    public boolean hasMovieChanges() {
+        return !added.isEmpty() || !updated.isEmpty() || !removed.isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The most recent catalog changes, kept in a fixed-size ring buffer so that a client who missed a
+ * few can catch up from the version it last saw, arrr! Like the {@link SlowRequestLog}, once the
+ * buffer is full each new change overwrites the oldest one. Listeners hear about every change as it
+ * is appended, in version order.
+ */
+public class CatalogChangeLog {
+    private final CatalogChange[] changes;
+    private final List<Consumer<CatalogChange>> listeners = new CopyOnWriteArrayList<>();
+    private long appended;
+    private long latestVersion;
+
+    /**
+     * @param capacity How many changes are kept for catching up
+     * @param initialVersion The catalog version being served before the first change
+     */
+    public CatalogChangeLog(int capacity, long initialVersion) {
+        this.changes = new CatalogChange[Math.max(1, capacity)];
+        this.latestVersion = initialVersion;
+    }
+
+    /**
+     * Records a change and tells the listeners. Changes must be appended one version after another.
+     */
+    public void append(CatalogChange change) {
+        synchronized (this) {
+            if (change.getPreviousVersion() != latestVersion) {
+                throw new IllegalStateException("Arrr! Change to version " + change.getVersion()
+                    + " does not follow version " + latestVersion);
+            }
+            changes[(int) (appended % changes.length)] = change;
+            appended++;
+            latestVersion = change.getVersion();
+        }
+        for (Consumer<CatalogChange> listener : listeners) {
+            listener.accept(change);
+        }
+    }
+
+    /**
+     * @return the version of the newest change, or the initial version before any change
+     */
+    public synchronized long getLatestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * Gets every change after the given version, oldest first, for a client resuming from it.
+     *
+     * @param version The last catalog version the client saw
+     * @return the changes since that version, possibly none, or empty when they are no longer all kept
+     *         (or the version was never served) and the client has to fetch the catalog afresh
+     */
+    public synchronized Optional<List<CatalogChange>> since(long version) {
+        if (version > latestVersion) {
+            return Optional.empty();
+        }
+        int kept = (int) Math.min(appended, changes.length);
+        long oldestResumable = kept == 0 ? latestVersion
+            : changes[(int) ((appended - kept) % changes.length)].getPreviousVersion();
+        if (version < oldestResumable) {
+            return Optional.empty();
+        }
+        List<CatalogChange> missed = new ArrayList<>();
+        for (long i = appended - kept; i < appended; i++) {
+            CatalogChange change = changes[(int) (i % changes.length)];
+            if (change.getVersion() > version) {
+                missed.add(change);
+            }
+        }
+        return Optional.of(missed);
+    }
+
+    public void addListener(Consumer<CatalogChange> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<CatalogChange> listener) {
+        listeners.remove(listener);
+    }
+}
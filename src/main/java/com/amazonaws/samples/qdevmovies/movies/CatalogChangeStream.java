@@ -0,0 +1,369 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pushes catalog changes to subscribers as server-sent events, so nobody has to poll the chest, arrr!
+ * <p>
+ * Every event ID is {@code epoch:version}: the catalog version, prefixed with an epoch picked at random
+ * when the stream starts, because catalog versions start over with every process. A new subscriber first
+ * gets a {@value #CATALOG_EVENT} event with the current version, then a {@value #CHANGE_EVENT} event with
+ * the movies added, updated and removed for every reload after it. A subscriber reconnecting with the last
+ * event ID it saw gets the changes it missed from the {@link CatalogChangeLog} instead. When they are no
+ * longer all kept, or the ID is from another epoch, it gets a {@value #RESET_EVENT} event with the current
+ * version, which means: fetch the catalog afresh.
+ * <p>
+ * A single dispatcher thread decides what every subscriber gets, so each sees the changes in version
+ * order, but it never writes to a connection itself: it puts the events on the subscriber's own bounded
+ * queue, which one of a fixed pool of sender threads drains. A subscriber that stops reading therefore
+ * holds up nobody else. It is dropped once its queue overflows, or once a single send has been stuck
+ * for longer than the send timeout, and can reconnect to catch up from the last version it got. A stuck
+ * send still keeps its sender thread until the servlet container's write timeout fails it.
+ * <p>
+ * When the stream is disabled, no threads are started and the change log is not listened to.
+ */
+@Component
+public class CatalogChangeStream {
+    private static final Logger logger = LogManager.getLogger(CatalogChangeStream.class);
+
+    static final String CATALOG_EVENT = "catalog";
+    static final String CHANGE_EVENT = "change";
+    static final String RESET_EVENT = "reset";
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final CatalogChangeLog changeLog;
+    private final MovieProperties.ChangeStream settings;
+    private final int queueCapacity;
+    private final long sendTimeoutNanos;
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService senders;
+    private final Consumer<CatalogChange> listener = this::publish;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    @Autowired
+    public CatalogChangeStream(MovieService movieService, MovieProperties properties) {
+        this.changeLog = movieService.getCatalogChanges();
+        this.settings = properties.getChangeStream();
+        // A reconnecting subscriber is sent up to the whole replay buffer at once; that must not overflow its queue
+        this.queueCapacity = Math.max(settings.getSendQueueCapacity(), settings.getReplayCapacity() + 1);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, settings.getSendTimeoutMillis()));
+        if (!settings.isEnabled()) {
+            this.dispatcher = null;
+            this.senders = null;
+            return;
+        }
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-change-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders = newSenderPool(settings);
+        changeLog.addListener(listener);
+        long heartbeatSeconds = settings.getHeartbeatSeconds();
+        if (heartbeatSeconds > 0) {
+            dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A fixed number of sender threads, idle ones stopping after a minute. Each subscriber has at most
+     * one drain waiting, so the queue only fills up once the pool is shut down.
+     */
+    private static ExecutorService newSenderPool(MovieProperties.ChangeStream settings) {
+        int senderThreads = Math.max(1, settings.getSenderThreads());
+        AtomicInteger senderNumbers = new AtomicInteger();
+        ThreadPoolExecutor senderPool = new ThreadPoolExecutor(senderThreads, senderThreads,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(Math.max(1, settings.getMaxSubscribers())), runnable -> {
+                Thread thread = new Thread(runnable, "catalog-change-sender-" + senderNumbers.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        senderPool.allowCoreThreadTimeOut(true);
+        return senderPool;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Opens a stream of catalog changes.
+     *
+     * @param lastEventId The last event ID the subscriber saw, or {@code null} for a new subscriber
+     * @return the stream, or empty when the subscriber limit has been reached or the stream is disabled
+     *         or shut down
+     */
+    public Optional<SseEmitter> subscribe(String lastEventId) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        if (openStreams.incrementAndGet() > settings.getMaxSubscribers()) {
+            openStreams.decrementAndGet();
+            logger.warn("Turning away a catalog change subscriber: {} streams already open",
+                settings.getMaxSubscribers());
+            return Optional.empty();
+        }
+        Subscriber subscriber = new Subscriber(newEmitter(settings.getTimeoutMillis()), queueCapacity);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(error -> remove(subscriber));
+        try {
+            dispatcher.execute(() -> start(subscriber, lastEventId));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Turning away a catalog change subscriber: the stream is shut down");
+            remove(subscriber);
+            return Optional.empty();
+        }
+        return Optional.of(subscriber.emitter);
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    /**
+     * @return the ID of the event for the given catalog version
+     */
+    String eventId(long version) {
+        return epoch + ":" + version;
+    }
+
+    /**
+     * Reads the catalog version out of an event ID of this epoch.
+     *
+     * @return the version, or {@code null} when the ID is from another epoch or no event ID at all
+     */
+    private Long versionOf(String eventId) {
+        String trimmed = eventId.trim();
+        int separator = trimmed.lastIndexOf(':');
+        if (separator < 0 || !trimmed.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(trimmed.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return how many change streams are open
+     */
+    public int getSubscriberCount() {
+        return openStreams.get();
+    }
+
+    /**
+     * Catches the subscriber up and starts sending it live changes. Runs on the dispatcher, so a change
+     * appended meanwhile is either part of the catch-up or sent afterwards, never lost; one queued both
+     * ways is skipped the second time.
+     */
+    private void start(Subscriber subscriber, String lastEventId) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        long latestVersion = changeLog.getLatestVersion();
+        Long lastSeenVersion = lastEventId == null ? null : versionOf(lastEventId);
+        Optional<List<CatalogChange>> missed = lastSeenVersion == null
+            ? Optional.empty() : changeLog.since(lastSeenVersion);
+        if (missed.isPresent()) {
+            subscriber.lastQueuedVersion = lastSeenVersion;
+            for (CatalogChange change : missed.get()) {
+                queueChange(subscriber, change);
+            }
+        } else {
+            if (lastEventId != null) {
+                logger.debug("Cannot catch up from event '{}', sending a reset", lastEventId);
+            }
+            queue(subscriber, SseEmitter.event()
+                .name(lastEventId == null ? CATALOG_EVENT : RESET_EVENT)
+                .id(eventId(latestVersion))
+                .data(Collections.singletonMap("catalogVersion", latestVersion), MediaType.APPLICATION_JSON));
+            subscriber.lastQueuedVersion = latestVersion;
+        }
+        subscribers.add(subscriber);
+        if (subscriber.closed.get()) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Hands a change to the dispatcher. Called by the change log on the thread reloading the catalog,
+     * which must not fail because the stream has been shut down meanwhile.
+     */
+    private void publish(CatalogChange change) {
+        try {
+            dispatcher.execute(() -> {
+                for (Subscriber subscriber : subscribers) {
+                    queueChange(subscriber, change);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Not streaming catalog version {}: the stream is shut down", change.getVersion());
+        }
+    }
+
+    private void queueChange(Subscriber subscriber, CatalogChange change) {
+        if (change.getVersion() <= subscriber.lastQueuedVersion) {
+            return;
+        }
+        queue(subscriber, SseEmitter.event()
+            .name(CHANGE_EVENT)
+            .id(eventId(change.getVersion()))
+            .data(change, MediaType.APPLICATION_JSON));
+        subscriber.lastQueuedVersion = change.getVersion();
+    }
+
+    /**
+     * Drops subscribers whose send has been stuck too long and sends a comment line to the others that
+     * have nothing queued, so idle streams are not closed by proxies along the way and streams of
+     * subscribers that have gone are noticed.
+     */
+    private void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendStarted = subscriber.sendStartedNanos;
+            if (sendStarted != 0 && now - sendStarted > sendTimeoutNanos) {
+                logger.warn("Dropping a catalog change subscriber whose send has been stuck for {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(now - sendStarted));
+                drop(subscriber);
+            } else if (subscriber.queue.isEmpty()) {
+                queue(subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+
+    /**
+     * Puts an event on the subscriber's queue and makes sure a sender is draining it. Never blocks.
+     */
+    private void queue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            logger.warn("Dropping a catalog change subscriber that fell {} events behind", queueCapacity);
+            drop(subscriber);
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                logger.debug("Dropping a catalog change subscriber: no sender will take it");
+                subscriber.draining.set(false);
+                drop(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Sends the subscriber's queued events in order, on a sender thread, until the queue is empty.
+     * Only one drain runs per subscriber at a time: whoever flips {@code draining} on owns the emitter.
+     */
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedNanos = System.nanoTime();
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("Dropping a catalog change subscriber that went away: {}", e.getMessage());
+                    remove(subscriber);
+                } finally {
+                    subscriber.sendStartedNanos = 0;
+                }
+            }
+            subscriber.draining.set(false);
+            if (subscriber.closed.get()) {
+                completeIfIdle(subscriber);
+                return;
+            }
+        } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Closes a subscriber's stream.
+     */
+    private void drop(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            subscriber.queue.clear();
+            completeIfIdle(subscriber);
+        }
+    }
+
+    /**
+     * Completes a closed subscriber's emitter unless a send is in progress, in which case the drain
+     * doing it completes the emitter once the send returns. Completing waits for a send in progress,
+     * so this never blocks the caller, and never takes a thread of its own.
+     */
+    private void completeIfIdle(Subscriber subscriber) {
+        // Once closed, draining is never released again, so nothing is sent after completing
+        if (subscriber.draining.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscribers.remove(subscriber);
+            openStreams.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!isEnabled()) {
+            return;
+        }
+        changeLog.removeListener(listener);
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            drop(subscriber);
+        }
+        senders.shutdown();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendStartedNanos;
+        private long lastQueuedVersion = Long.MIN_VALUE;
+
+        private Subscriber(SseEmitter emitter, int queueCapacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
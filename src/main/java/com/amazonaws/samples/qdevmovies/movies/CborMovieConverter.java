@@ -0,0 +1,61 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Answers {@code application/cbor} requests, arrr! Lists of movies and batch search results are
+ * written by the {@link CborMovieEncoder} from its per-movie cache; everything else, and reading
+ * CBOR request bodies, is left to Jackson like the CBOR converter this one replaces.
+ * <p>
+ * Spring's content negotiation picks between this and the JSON converter from the {@code Accept}
+ * header, so every endpoint answering with objects can answer in CBOR. Being a
+ * {@link MappingJackson2CborHttpMessageConverter}, Spring Boot puts it in place of the default CBOR
+ * converter, after the JSON one, so JSON stays the answer to a wildcard {@code Accept} header.
+ */
+@Component
+public class CborMovieConverter extends MappingJackson2CborHttpMessageConverter {
+    private final CborMovieEncoder encoder;
+
+    @Autowired
+    public CborMovieConverter(CborMovieEncoder encoder) {
+        super(encoder.getObjectMapper());
+        this.encoder = encoder;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (isListOf(object, Movie.class)) {
+            outputMessage.getBody().write(encoder.encodeMovies(castList(object)));
+        } else if (isListOf(object, MovieSearchResult.class)) {
+            outputMessage.getBody().write(encoder.encodeSearchResults(castList(object)));
+        } else {
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+
+    private static boolean isListOf(Object object, Class<?> elementType) {
+        if (!(object instanceof List) || ((List<?>) object).isEmpty()) {
+            return false;
+        }
+        for (Object element : (List<?>) object) {
+            if (!elementType.isInstance(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> castList(Object object) {
+        return (List<T>) object;
+    }
+}
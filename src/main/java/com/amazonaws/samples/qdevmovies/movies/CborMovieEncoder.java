@@ -0,0 +1,188 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Encodes movie treasures as CBOR for service-to-service callers, arrr!
+ * <p>
+ * Each movie is encoded once per catalog version and its bytes are kept, the same way
+ * {@link MovieCardRenderer} keeps rendered cards. A CBOR array or map is just a length header
+ * followed by its encoded items, so a list of movies is written as an array header plus the cached
+ * bytes of every movie, with no per-request serialization of the movies at all. As with the cards,
+ * cached bytes are only reused for the very same movie instance they were encoded from. Responses
+ * go through the {@link CborMovieConverter}.
+ */
+@Component
+public class CborMovieEncoder {
+    private static final Logger logger = LogManager.getLogger(CborMovieEncoder.class);
+
+    private static final int MAJOR_TYPE_TEXT = 3;
+    private static final int MAJOR_TYPE_ARRAY = 4;
+    private static final int MAJOR_TYPE_MAP = 5;
+
+    private final ObjectMapper mapper;
+    private final MovieService movieService;
+    private final boolean cacheEnabled;
+    private volatile EncodedMovies encodedMovies = new EncodedMovies(0);
+
+    @Autowired
+    public CborMovieEncoder(Jackson2ObjectMapperBuilder objectMapperBuilder, MovieService movieService,
+                            MovieProperties properties) {
+        this.mapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        this.movieService = movieService;
+        this.cacheEnabled = properties.getBinaryCache().isEnabled();
+    }
+
+    /**
+     * @return the CBOR mapper every encoding is written with
+     */
+    ObjectMapper getObjectMapper() {
+        return mapper;
+    }
+
+    /**
+     * Encodes the movies as a CBOR array, in order, from the per-movie cache.
+     */
+    public byte[] encodeMovies(List<Movie> movies) {
+        try (RequestTrace.Span span = RequestTrace.span("CborMovieEncoder.movies")) {
+            EncodedMovies current = currentEncodedMovies();
+            byte[][] items = new byte[movies.size()][];
+            int length = 0;
+            for (int i = 0; i < items.length; i++) {
+                items[i] = current.bytesFor(movies.get(i));
+                length += items[i].length;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length + 9);
+            writeHead(out, MAJOR_TYPE_ARRAY, items.length);
+            for (byte[] item : items) {
+                out.write(item, 0, item.length);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Encodes batch search results as a CBOR array of maps with the same fields as the JSON response,
+     * splicing in the cached bytes of the movies.
+     */
+    public byte[] encodeSearchResults(List<MovieSearchResult> results) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeHead(out, MAJOR_TYPE_ARRAY, results.size());
+        for (MovieSearchResult result : results) {
+            writeHead(out, MAJOR_TYPE_MAP, 4);
+            writeField(out, "request", encode(result.getRequest()));
+            writeField(out, "movies", encodeMovies(result.getMovies()));
+            writeField(out, "count", encode(result.getCount()));
+            writeField(out, "facets", encode(result.getFacets()));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes any other value, such as reviews, without caching.
+     */
+    public byte[] encode(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Arrr! Could not encode the treasure as CBOR", e);
+        }
+    }
+
+    /**
+     * @return the number of movies whose encoded bytes are currently cached
+     */
+    public int getCachedMovieCount() {
+        return encodedMovies.byId.size();
+    }
+
+    private EncodedMovies currentEncodedMovies() {
+        long version = movieService.getCatalogVersion();
+        EncodedMovies current = encodedMovies;
+        if (current.catalogVersion != version) {
+            logger.debug("Catalog version {} is new, starting a fresh CBOR cache", version);
+            current = new EncodedMovies(version);
+            encodedMovies = current;
+        }
+        return current;
+    }
+
+    private static void writeField(ByteArrayOutputStream out, String name, byte[] value) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        writeHead(out, MAJOR_TYPE_TEXT, key.length);
+        out.write(key, 0, key.length);
+        out.write(value, 0, value.length);
+    }
+
+    /**
+     * Writes a CBOR head: the major type in the top three bits and the length in the shortest form that holds it.
+     */
+    private static void writeHead(ByteArrayOutputStream out, int majorType, int length) {
+        int type = majorType << 5;
+        if (length < 24) {
+            out.write(type | length);
+        } else if (length < 0x100) {
+            out.write(type | 24);
+            out.write(length);
+        } else if (length < 0x10000) {
+            out.write(type | 25);
+            out.write(length >>> 8);
+            out.write(length);
+        } else {
+            out.write(type | 26);
+            out.write(length >>> 24);
+            out.write(length >>> 16);
+            out.write(length >>> 8);
+            out.write(length);
+        }
+    }
+
+    /**
+     * The movie encodings for one catalog version.
+     */
+    private final class EncodedMovies {
+        private final long catalogVersion;
+        private final ConcurrentMap<Long, EncodedMovie> byId = new ConcurrentHashMap<>();
+
+        private EncodedMovies(long catalogVersion) {
+            this.catalogVersion = catalogVersion;
+        }
+
+        private byte[] bytesFor(Movie movie) {
+            if (!cacheEnabled) {
+                return encode(movie);
+            }
+            EncodedMovie cached = byId.get(movie.getId());
+            if (cached != null && cached.movie == movie) {
+                return cached.bytes;
+            }
+            byte[] bytes = encode(movie);
+            byId.put(movie.getId(), new EncodedMovie(movie, bytes));
+            return bytes;
+        }
+    }
+
+    private static final class EncodedMovie {
+        private final Movie movie;
+        private final byte[] bytes;
+
+        private EncodedMovie(Movie movie, byte[] bytes) {
+            this.movie = movie;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Movie descriptions kept on disk instead of on the heap, arrr!
+ * <p>
+ * All descriptions of a catalog are written back to back, as UTF-8, to one file; an offset and a
+ * length per movie are all that stays in memory. A description is read when somebody asks for it,
+ * either with a positional read on the file channel or from a memory mapping of the whole file,
+ * and the most requested ones are kept in a small W-TinyLFU cache.
+ * <p>
+ * A file channel closes itself when a thread reading from it is interrupted, for example a cancelled
+ * export or a shard call given up on. The interrupted read fails, but the channel is reopened for
+ * everybody else rather than failing every later read until the next reload.
+ * <p>
+ * A length and a hash of every description are kept too, so two stores can tell whether a movie's
+ * description changed between catalogs without reading either file.
+ */
+public class DescriptionStore implements Closeable {
+    private static final Logger logger = LogManager.getLogger(DescriptionStore.class);
+
+    /**
+     * How descriptions are read from the file.
+     */
+    public enum ReadMode {
+        /** {@code FileChannel} reads at an offset; no address space is used for the file. */
+        POSITIONAL,
+        /** The whole file is mapped into memory and read from there; the OS page cache does the caching. */
+        MMAP
+    }
+
+    private final DescriptionFile file;
+    private final MappedByteBuffer mapped;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final long[] hashes;
+    private final SearchResultCache<Integer, String> cache;
+
+    private DescriptionStore(DescriptionFile file, MappedByteBuffer mapped, long[] offsets, int[] lengths,
+                             long[] hashes, int cacheEntries) {
+        this.file = file;
+        this.mapped = mapped;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.hashes = hashes;
+        this.cache = cacheEntries > 0 ? SearchResultCache.ofMaximumEntries(cacheEntries) : null;
+    }
+
+    /**
+     * Writes the descriptions of the movies to a new file in the directory and returns the movies
+     * again, in the same order, with their descriptions moved to the store.
+     */
+    static Loaded store(List<Movie> movies, MovieProperties.Descriptions settings) {
+        Path file = null;
+        FileChannel channel = null;
+        boolean stored = false;
+        try {
+            Path directory = settings.getDirectory().isEmpty()
+                ? Paths.get(System.getProperty("java.io.tmpdir")) : Paths.get(settings.getDirectory());
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "movie-descriptions-", ".txt");
+
+            long[] offsets = new long[movies.size()];
+            int[] lengths = new int[movies.size()];
+            long[] hashes = new long[movies.size()];
+            long position = 0;
+            try (OutputStream out = Files.newOutputStream(file)) {
+                for (int slot = 0; slot < movies.size(); slot++) {
+                    byte[] bytes = movies.get(slot).getDescription().getBytes(StandardCharsets.UTF_8);
+                    out.write(bytes);
+                    offsets[slot] = position;
+                    lengths[slot] = bytes.length;
+                    hashes[slot] = hash(bytes);
+                    position += bytes.length;
+                }
+            }
+
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            MappedByteBuffer mapped = null;
+            if (settings.getReadMode() == ReadMode.MMAP && position > 0) {
+                if (position <= Integer.MAX_VALUE) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+                } else {
+                    logger.warn("Description file be too big to map in one piece, using positional reads");
+                }
+            }
+            DescriptionStore store = new DescriptionStore(new DescriptionFile(file, channel), mapped, offsets,
+                lengths, hashes, settings.getCacheEntries());
+
+            List<Movie> storedMovies = new ArrayList<>(movies.size());
+            for (int slot = 0; slot < movies.size(); slot++) {
+                storedMovies.add(new Movie(movies.get(slot), store, slot));
+            }
+            logger.info("Ahoy! Moved {} movie descriptions ({} bytes) to {} with {} reads",
+                movies.size(), position, file, settings.getReadMode().name().toLowerCase(Locale.ROOT));
+            stored = true;
+            return new Loaded(store, storedMovies);
+        } catch (IOException e) {
+            throw new MovieDataLoadException("Arrr! Failed to write the movie description file", e);
+        } finally {
+            if (!stored) {
+                discard(file, channel);
+            }
+        }
+    }
+
+    /**
+     * Cleans up after a store that failed halfway through being written or opened.
+     */
+    private static void discard(Path file, FileChannel channel) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException cleanup) {
+            logger.warn("Could not clean up the half-written description file {}: {}", file, cleanup.getMessage());
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a description's bytes.
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Tells whether a description of this store and one of another store are the same, by their
+     * lengths and hashes, without reading either.
+     */
+    boolean sameDescription(int slot, DescriptionStore other, int otherSlot) {
+        return lengths[slot] == other.lengths[otherSlot] && hashes[slot] == other.hashes[otherSlot];
+    }
+
+    /**
+     * Gets one description, from the cache when it is hot.
+     */
+    String read(int slot) {
+        if (cache != null) {
+            String cached = cache.getIfPresent(slot);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String description = new String(readBytes(slot), StandardCharsets.UTF_8);
+        if (cache != null) {
+            cache.put(slot, description);
+        }
+        return description;
+    }
+
+    private byte[] readBytes(int slot) {
+        byte[] bytes = new byte[lengths[slot]];
+        if (mapped != null) {
+            ByteBuffer view = mapped.duplicate();
+            view.position((int) offsets[slot]);
+            view.get(bytes);
+            return bytes;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        FileChannel reading = file.channel;
+        try {
+            try {
+                readFully(reading, buffer, offsets[slot], slot);
+            } catch (ClosedChannelException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                buffer.clear();
+                readFully(file.reopen(reading), buffer, offsets[slot], slot);
+            }
+        } catch (IOException e) {
+            throw new MovieDataLoadException("Arrr! Failed to read a movie description from disk", e);
+        }
+        return bytes;
+    }
+
+    private static void readFully(FileChannel from, ByteBuffer buffer, long position, int slot) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = from.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new MovieDataLoadException("Arrr! The movie description file ended early at slot " + slot);
+            }
+        }
+    }
+
+    /**
+     * Hit and miss counters of the hot-description cache.
+     */
+    public SearchResultCache.Stats cacheStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    Path getFile() {
+        return file.path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * The file of a store and the channel reading it. Kept apart from the store, so the file can be
+     * closed once the store itself is unreachable.
+     */
+    private static final class DescriptionFile implements Closeable {
+        private final Path path;
+        private volatile FileChannel channel;
+        private boolean closed;
+
+        private DescriptionFile(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * Replaces a channel closed by an interrupted reader, unless another reader already did or the
+         * file itself was closed.
+         */
+        private synchronized FileChannel reopen(FileChannel broken) throws IOException {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+            if (channel == broken) {
+                logger.warn("Description file channel was closed by an interrupted reader, reopening {}", path);
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                closed = true;
+                channel.close();
+            }
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Keeps the files of retired stores open for as long as any movie can still read from them, arrr!
+     * <p>
+     * Every movie holds on to its store, so a store stays reachable while a request, an export or a
+     * cache still holds a movie of its catalog, however many reloads ago that was. Once the last one
+     * is gone, the garbage collector enqueues the store's phantom reference and the file is closed
+     * and deleted the next time {@link #closeUnreachable()} runs.
+     */
+    static final class Retired {
+        private final ReferenceQueue<DescriptionStore> unreachable = new ReferenceQueue<>();
+        private final Map<Reference<DescriptionStore>, DescriptionFile> files = new ConcurrentHashMap<>();
+
+        /**
+         * Starts watching a store that is no longer the current one.
+         */
+        void retire(DescriptionStore store) {
+            files.put(new PhantomReference<>(store, unreachable), store.file);
+        }
+
+        /**
+         * Closes the files of the retired stores that nothing can read from any more.
+         *
+         * @return how many files were closed
+         */
+        int closeUnreachable() {
+            int closed = 0;
+            Reference<? extends DescriptionStore> reference;
+            while ((reference = unreachable.poll()) != null) {
+                closeQuietly(files.remove(reference));
+                closed++;
+            }
+            return closed;
+        }
+
+        /**
+         * @return how many retired stores still have their file open
+         */
+        int size() {
+            return files.size();
+        }
+
+        /**
+         * Closes every retired file, reachable or not, for shutting down.
+         */
+        void closeAll() {
+            for (Reference<DescriptionStore> reference : files.keySet()) {
+                closeQuietly(files.remove(reference));
+            }
+        }
+
+        private static void closeQuietly(DescriptionFile file) {
+            if (file == null) {
+                return;
+            }
+            try {
+                file.close();
+            } catch (IOException e) {
+                logger.warn("Could not clean up the movie description file {}: {}", file.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A new store together with the movies that now read their descriptions from it.
+     */
+    static final class Loaded {
+        final DescriptionStore store;
+        final List<Movie> movies;
+
+        private Loaded(DescriptionStore store, List<Movie> movies) {
+            this.store = store;
+            this.movies = movies;
+        }
+    }
+}
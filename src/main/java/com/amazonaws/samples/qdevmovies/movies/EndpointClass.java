@@ -0,0 +1,48 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.regex.Pattern;
+
+/**
+ * Endpoints grouped by how expensive they are, each with its own admission budget.
+ */
+public enum EndpointClass {
+    /** Searches: a scan of the catalog unless the result is cached. */
+    SEARCH,
+    /** The full movie list page, which renders every movie. */
+    LISTING,
+    /** Lookups by movie ID, which are cheap map reads. */
+    LOOKUP;
+
+    private static final Pattern DETAILS_PATH = Pattern.compile("/movies/[^/]+/details");
+
+    /**
+     * Works out the class of a request from its method and path (without the context path). A
+     * trailing slash is ignored, as Spring MVC's request mapping ignores it.
+     *
+     * @return the endpoint class, or {@code null} for requests that are not admission controlled
+     */
+    public static EndpointClass classify(String method, String path) {
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if ("GET".equals(method)) {
+            if ("/movies/search".equals(path)) {
+                return SEARCH;
+            }
+            if ("/movies".equals(path)) {
+                return LISTING;
+            }
+            if (DETAILS_PATH.matcher(path).matches()) {
+                return LOOKUP;
+            }
+        } else if ("POST".equals(method)) {
+            if ("/api/movies/batch-search".equals(path)) {
+                return SEARCH;
+            }
+            if ("/api/movies/batch".equals(path)) {
+                return LOOKUP;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Locale;
+
+/**
+ * Formats the catalog export can be written in.
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Parses the {@code format} request parameter, case-insensitively.
+     *
+     * @throws IllegalArgumentException if the format be unknown
+     */
+    public static ExportFormat fromParameter(String format) {
+        for (ExportFormat exportFormat : values()) {
+            if (exportFormat.fileExtension.equals(format.trim().toLowerCase(Locale.ROOT))) {
+                return exportFormat;
+            }
+        }
+        throw new IllegalArgumentException("Arrr! Unknown export format '" + format + "', try ndjson or csv, matey!");
+    }
+}
@@ -0,0 +1,13 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * Arrr! This exception be thrown when a catalog export runs past its time limit, matey!
+ * An export that has not sent anything yet answers 503; one that has is aborted, so the client
+ * sees a broken transfer rather than a file that looks complete.
+ */
+public class ExportTimeoutException extends RuntimeException {
+
+    public ExportTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ways a set of movie treasures can be broken down for drill-down counts.
+ * Bands are listed best (or longest) first; decades oldest first.
+ */
+public enum Facet {
+    /** Genre tokens: "Crime/Drama" counts towards both Crime and Drama. */
+    GENRE,
+    DECADE,
+    RATING_BAND,
+    DURATION_BAND;
+
+    static final String[] RATING_BANDS = {"4.5 - 5.0", "4.0 - 4.4", "3.0 - 3.9", "Under 3.0"};
+    static final String[] DURATION_BANDS = {"150+ min", "120 - 149 min", "90 - 119 min", "Under 90 min"};
+
+    /**
+     * Gets the values of this facet that a movie counts towards.
+     */
+    List<String> valuesOf(Movie movie) {
+        switch (this) {
+            case GENRE:
+                List<String> tokens = new ArrayList<>(2);
+                for (String token : movie.getGenre().split("/")) {
+                    String trimmed = token.trim();
+                    if (!trimmed.isEmpty() && !tokens.contains(trimmed)) {
+                        tokens.add(trimmed);
+                    }
+                }
+                return tokens;
+            case DECADE:
+                return Collections.singletonList(Math.floorDiv(movie.getYear(), 10) * 10 + "s");
+            case RATING_BAND:
+                double rating = movie.getImdbRating();
+                return Collections.singletonList(RATING_BANDS[rating >= 4.5 ? 0 : rating >= 4.0 ? 1 : rating >= 3.0 ? 2 : 3]);
+            case DURATION_BAND:
+                int duration = movie.getDuration();
+                return Collections.singletonList(
+                    DURATION_BANDS[duration >= 150 ? 0 : duration >= 120 ? 1 : duration >= 90 ? 2 : 3]);
+            default:
+                throw new IllegalStateException("Unknown facet " + this);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * How many movies of a result set fall under each facet value, for drill-down menus.
+ * Values with no movies are left out. Genres are listed most common first; the other facets keep
+ * their natural order.
+ */
+public class FacetCounts {
+    private final Map<Facet, Map<String, Integer>> counts;
+
+    FacetCounts(Map<Facet, Map<String, Integer>> counts) {
+        Map<Facet, Map<String, Integer>> copy = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            Map<String, Integer> values = counts.getOrDefault(facet, Collections.emptyMap());
+            copy.put(facet, Collections.unmodifiableMap(facet == Facet.GENRE ? mostCommonFirst(values) : values));
+        }
+        this.counts = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Counts the facets of the movies one by one, for result sets that have no precomputed bitmaps.
+     */
+    static FacetCounts scan(List<Movie> movies) {
+        Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            counts.put(facet, new LinkedHashMap<>());
+        }
+        seedOrder(counts.get(Facet.RATING_BAND), Facet.RATING_BANDS);
+        seedOrder(counts.get(Facet.DURATION_BAND), Facet.DURATION_BANDS);
+        for (Movie movie : movies) {
+            for (Facet facet : Facet.values()) {
+                for (String value : facet.valuesOf(movie)) {
+                    counts.get(facet).merge(value, 1, Integer::sum);
+                }
+            }
+        }
+        Map<String, Integer> decades = new TreeMap<>(counts.get(Facet.DECADE));
+        counts.put(Facet.DECADE, new LinkedHashMap<>(decades));
+        for (Map<String, Integer> values : counts.values()) {
+            values.values().removeIf(count -> count == 0);
+        }
+        return new FacetCounts(counts);
+    }
+
+    private static void seedOrder(Map<String, Integer> values, String[] order) {
+        for (String value : order) {
+            values.put(value, 0);
+        }
+    }
+
+    private static Map<String, Integer> mostCommonFirst(Map<String, Integer> values) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(values.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    public Map<String, Integer> get(Facet facet) {
+        return counts.get(facet);
+    }
+
+    public Map<String, Integer> getGenre() {
+        return counts.get(Facet.GENRE);
+    }
+
+    public Map<String, Integer> getDecade() {
+        return counts.get(Facet.DECADE);
+    }
+
+    public Map<String, Integer> getRatingBand() {
+        return counts.get(Facet.RATING_BAND);
+    }
+
+    public Map<String, Integer> getDurationBand() {
+        return counts.get(Facet.DURATION_BAND);
+    }
+}
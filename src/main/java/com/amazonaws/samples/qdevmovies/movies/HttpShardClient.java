@@ -0,0 +1,106 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reaches the other shards over their {@code /internal/shard} endpoints.
+ * Responses are parsed with the same JSON mapping used to load the catalog file.
+ */
+public class HttpShardClient implements ShardClient {
+    private final List<String> nodes;
+    private final RestTemplate restTemplate;
+
+    public HttpShardClient(List<String> nodes, int timeoutMillis) {
+        this.nodes = new ArrayList<>(nodes);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMillis);
+        requestFactory.setReadTimeout(timeoutMillis);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public Optional<Movie> getMovie(int shard, long id) {
+        try {
+            String body = restTemplate.getForObject(nodes.get(shard) + "/internal/shard/movies/{id}", String.class, id);
+            return Optional.of(MovieService.parseMovie(new JSONObject(body)));
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Movie> search(int shard, SearchCriteria criteria) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(nodes.get(shard) + "/internal/shard/search");
+        if (criteria.getId() != null) {
+            uri.queryParam("id", criteria.getId());
+        }
+        if (criteria.getName() != null) {
+            uri.queryParam("name", criteria.getName());
+        }
+        if (criteria.getGenre() != null) {
+            uri.queryParam("genre", criteria.getGenre());
+        }
+        return parseMovies(restTemplate.getForObject(uri.build().encode().toUri(), String.class));
+    }
+
+    @Override
+    public List<List<Movie>> searchBatch(int shard, List<SearchCriteria> criteriaList) {
+        JSONArray requests = new JSONArray();
+        for (SearchCriteria criteria : criteriaList) {
+            requests.put(new JSONObject()
+                .putOpt("id", criteria.getId())
+                .putOpt("name", criteria.getName())
+                .putOpt("genre", criteria.getGenre()));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String body = restTemplate.postForObject(nodes.get(shard) + "/internal/shard/batch-search",
+            new HttpEntity<>(requests.toString(), headers), String.class);
+
+        JSONArray answers = new JSONArray(body);
+        List<List<Movie>> results = new ArrayList<>(answers.length());
+        for (int i = 0; i < answers.length(); i++) {
+            results.add(parseMovies(answers.getJSONArray(i)));
+        }
+        return results;
+    }
+
+    @Override
+    public List<Movie> getSimilarMovies(int shard, long id) {
+        return parseMovies(restTemplate.getForObject(
+            nodes.get(shard) + "/internal/shard/movies/{id}/similar", String.class, id));
+    }
+
+    @Override
+    public List<Movie> getAllMovies(int shard) {
+        return parseMovies(restTemplate.getForObject(nodes.get(shard) + "/internal/shard/movies", String.class));
+    }
+
+    private static List<Movie> parseMovies(String body) {
+        return parseMovies(new JSONArray(body));
+    }
+
+    private static List<Movie> parseMovies(JSONArray moviesArray) {
+        List<Movie> movies = new ArrayList<>(moviesArray.length());
+        for (int i = 0; i < moviesArray.length(); i++) {
+            movies.add(MovieService.parseMovie(moviesArray.getJSONObject(i)));
+        }
+        return movies;
+    }
+}
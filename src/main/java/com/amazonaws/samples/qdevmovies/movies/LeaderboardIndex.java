@@ -0,0 +1,152 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The materialized top-rated rankings behind the {@link Leaderboards}, arrr!
+ * <p>
+ * Every genre token and every decade has a board holding all of its movies ranked by rating, best
+ * first, ties in ID order. The ranking is built once when the catalog is loaded; a reload then only
+ * moves the movies its {@link CatalogChange} names in and out of their boards, and only the boards
+ * they touched work out their top K again. Boards hold IDs and ratings rather than movies, so the
+ * published leaderboards always hand out the current catalog's own movie instances.
+ * <p>
+ * Not thread-safe: it is built and changed under the catalog reload lock and read by publishing
+ * immutable {@link Leaderboards}.
+ */
+final class LeaderboardIndex {
+    private static final Facet[] BOARD_FACETS = {Facet.GENRE, Facet.DECADE};
+    private static final Comparator<Ranked> BEST_FIRST = Comparator
+        .comparingDouble((Ranked ranked) -> ranked.rating).reversed()
+        .thenComparingLong(ranked -> ranked.id);
+
+    private final int topK;
+    private final Map<Facet, Map<String, Board>> boards = new EnumMap<>(Facet.class);
+
+    LeaderboardIndex(List<Movie> movies, int topK) {
+        this.topK = Math.max(0, topK);
+        for (Facet facet : BOARD_FACETS) {
+            boards.put(facet, new TreeMap<>());
+        }
+        for (Movie movie : movies) {
+            add(movie);
+        }
+    }
+
+    /**
+     * Moves the added, updated and removed movies in and out of their boards.
+     *
+     * @param previous The catalog the change was made from
+     * @param current The catalog the change was made to
+     */
+    void apply(MovieCatalog previous, MovieCatalog current, CatalogChange change) {
+        for (long id : change.getRemoved()) {
+            previous.findById(id).ifPresent(this::remove);
+        }
+        for (long id : change.getUpdated()) {
+            previous.findById(id).ifPresent(this::remove);
+            current.findById(id).ifPresent(this::add);
+        }
+        for (long id : change.getAdded()) {
+            current.findById(id).ifPresent(this::add);
+        }
+    }
+
+    /**
+     * Publishes the top K of every board as movies of the given catalog, without sorting anything.
+     */
+    Leaderboards publish(MovieCatalog catalog) {
+        Map<Facet, Map<String, List<Movie>>> published = new EnumMap<>(Facet.class);
+        for (Map.Entry<Facet, Map<String, Board>> facet : boards.entrySet()) {
+            Map<String, List<Movie>> lists = new TreeMap<>();
+            for (Map.Entry<String, Board> board : facet.getValue().entrySet()) {
+                long[] topIds = board.getValue().topIds(topK);
+                List<Movie> top = new ArrayList<>(topIds.length);
+                for (long id : topIds) {
+                    catalog.findById(id).ifPresent(top::add);
+                }
+                lists.put(board.getKey(), top);
+            }
+            published.put(facet.getKey(), lists);
+        }
+        return new Leaderboards(catalog.getVersion(), topK, published.get(Facet.GENRE), published.get(Facet.DECADE));
+    }
+
+    private void add(Movie movie) {
+        Ranked ranked = new Ranked(movie.getId(), movie.getImdbRating());
+        for (Facet facet : BOARD_FACETS) {
+            for (String value : facet.valuesOf(movie)) {
+                boards.get(facet).computeIfAbsent(value, key -> new Board()).add(ranked);
+            }
+        }
+    }
+
+    private void remove(Movie movie) {
+        Ranked ranked = new Ranked(movie.getId(), movie.getImdbRating());
+        for (Facet facet : BOARD_FACETS) {
+            Map<String, Board> facetBoards = boards.get(facet);
+            for (String value : facet.valuesOf(movie)) {
+                Board board = facetBoards.get(value);
+                if (board != null) {
+                    board.remove(ranked);
+                    if (board.isEmpty()) {
+                        facetBoards.remove(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * All the movies of one genre token or decade, best first, with its top K kept until it changes.
+     */
+    private static final class Board {
+        private final TreeSet<Ranked> ranked = new TreeSet<>(BEST_FIRST);
+        private long[] topIds;
+
+        private void add(Ranked movie) {
+            if (ranked.add(movie)) {
+                topIds = null;
+            }
+        }
+
+        private void remove(Ranked movie) {
+            if (ranked.remove(movie)) {
+                topIds = null;
+            }
+        }
+
+        private boolean isEmpty() {
+            return ranked.isEmpty();
+        }
+
+        private long[] topIds(int topK) {
+            if (topIds == null) {
+                long[] ids = new long[Math.min(topK, ranked.size())];
+                Iterator<Ranked> best = ranked.iterator();
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = best.next().id;
+                }
+                topIds = ids;
+            }
+            return topIds;
+        }
+    }
+
+    private static final class Ranked {
+        private final long id;
+        private final double rating;
+
+        private Ranked(long id, double rating) {
+            this.id = id;
+            this.rating = rating;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The top-rated movie treasures of every genre token and every decade, best first, ready to show, arrr!
+ * "Crime/Drama" movies rank on both the Crime and the Drama board. Genres are listed alphabetically,
+ * decades oldest first. Each instance belongs to one catalog version and never changes.
+ */
+public class Leaderboards {
+    private final long catalogVersion;
+    private final int topK;
+    private final Map<String, List<Movie>> genre;
+    private final Map<String, List<Movie>> decade;
+
+    Leaderboards(long catalogVersion, int topK, Map<String, List<Movie>> genre, Map<String, List<Movie>> decade) {
+        this.catalogVersion = catalogVersion;
+        this.topK = topK;
+        this.genre = unmodifiable(genre);
+        this.decade = unmodifiable(decade);
+    }
+
+    private static Map<String, List<Movie>> unmodifiable(Map<String, List<Movie>> boards) {
+        Map<String, List<Movie>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Movie>> board : boards.entrySet()) {
+            copy.put(board.getKey(), Collections.unmodifiableList(board.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * @return the most movies any board holds
+     */
+    public int getTopK() {
+        return topK;
+    }
+
+    public Map<String, List<Movie>> getGenre() {
+        return genre;
+    }
+
+    public Map<String, List<Movie>> getDecade() {
+        return decade;
+    }
+
+    /**
+     * Gets the board of a genre token, ignoring case.
+     *
+     * @return the best movies of the genre, or an empty list if no movie has it
+     */
+    public List<Movie> forGenre(String genreToken) {
+        return find(genre, genreToken);
+    }
+
+    /**
+     * Gets the board of a decade such as {@code 1990s}.
+     *
+     * @return the best movies of the decade, or an empty list if no movie is from it
+     */
+    public List<Movie> forDecade(String decadeLabel) {
+        return find(decade, decadeLabel);
+    }
+
+    private static List<Movie> find(Map<String, List<Movie>> boards, String key) {
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        String trimmed = key.trim();
+        List<Movie> board = boards.get(trimmed);
+        if (board != null) {
+            return board;
+        }
+        for (Map.Entry<String, List<Movie>> entry : boards.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(trimmed)) {
+                return entry.getValue();
+            }
+        }
+        return Collections.emptyList();
+    }
+}
@@ -2,6 +2,8 @@ package com.amazonaws.samples.qdevmovies.movies;
 
 import com.amazonaws.samples.qdevmovies.utils.MovieIconUtils;
 
+import java.util.Objects;
+
 public class Movie {
 
     private final long id;
@@ -12,6 +14,9 @@ public class Movie {
     private final String description;
     private final int duration;
     private final double imdbRating;
+    private final String icon;
+    private final DescriptionStore descriptionStore;
+    private final int descriptionSlot;
 
     public Movie(long id, String movieName, String director, int year, String genre, String description, int duration, double imdbRating) {
         this.id = id;
@@ -22,6 +27,26 @@ public class Movie {
         this.description = description;
         this.duration = duration;
         this.imdbRating = imdbRating;
+        this.icon = MovieIconUtils.getMovieIcon(movieName);
+        this.descriptionStore = null;
+        this.descriptionSlot = -1;
+    }
+
+    /**
+     * Copies a movie but leaves its description in the store, to be read only when asked for.
+     */
+    Movie(Movie movie, DescriptionStore descriptionStore, int descriptionSlot) {
+        this.id = movie.id;
+        this.movieName = movie.movieName;
+        this.director = movie.director;
+        this.year = movie.year;
+        this.genre = movie.genre;
+        this.description = null;
+        this.duration = movie.duration;
+        this.imdbRating = movie.imdbRating;
+        this.icon = movie.icon;
+        this.descriptionStore = descriptionStore;
+        this.descriptionSlot = descriptionSlot;
     }
 
     public long getId() {
@@ -45,7 +70,18 @@ public class Movie {
     }
 
     public String getDescription() {
-        return this.description;
+        return this.descriptionStore == null ? this.description : this.descriptionStore.read(this.descriptionSlot);
+    }
+
+    /**
+     * Tells whether another movie has the same description. Descriptions on disk are compared by
+     * length and hash, without reading them.
+     */
+    boolean hasSameDescription(Movie other) {
+        if (this.descriptionStore != null && other.descriptionStore != null) {
+            return this.descriptionStore.sameDescription(this.descriptionSlot, other.descriptionStore, other.descriptionSlot);
+        }
+        return Objects.equals(getDescription(), other.getDescription());
     }
 
     public int getDuration() {
@@ -57,6 +93,6 @@ public class Movie {
     }
 
     public String getIcon() {
-        return MovieIconUtils.getMovieIcon(this.movieName);
+        return this.icon;
     }
 }
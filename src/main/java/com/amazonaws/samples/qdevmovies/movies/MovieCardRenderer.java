@@ -0,0 +1,124 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Renders the movie cards of the list and search pages, arrr!
+ * <p>
+ * Each card is rendered from the {@code fragments/movie-card} template the first time it is
+ * needed and its markup is kept for the rest of the catalog version, so a page is assembled by
+ * concatenating ready-made fragments. A cached card is only reused for the very same movie
+ * instance it was rendered from; movies fetched from other shards arrive as fresh objects on
+ * every request, so their cards are rendered each time.
+ */
+@Component
+public class MovieCardRenderer {
+    private static final Logger logger = LogManager.getLogger(MovieCardRenderer.class);
+    static final String CARD_TEMPLATE = "fragments/movie-card";
+
+    private final ITemplateEngine templateEngine;
+    private final MovieService movieService;
+    private final String contextPath;
+    private final boolean cacheEnabled;
+    private volatile Cards cards = new Cards(0);
+
+    @Autowired
+    public MovieCardRenderer(ITemplateEngine templateEngine, MovieService movieService, MovieProperties properties,
+                             @Value("${server.servlet.context-path:}") String contextPath) {
+        this.templateEngine = templateEngine;
+        this.movieService = movieService;
+        this.contextPath = contextPath;
+        this.cacheEnabled = properties.getCardCache().isEnabled();
+    }
+
+    /**
+     * Gets the card markup for all the movies, in order, ready to be written into the movies grid.
+     */
+    public String renderCards(List<Movie> movies) {
+        Cards current = currentCards();
+        String[] fragments = new String[movies.size()];
+        int length = 0;
+        for (int i = 0; i < fragments.length; i++) {
+            fragments[i] = current.cardFor(movies.get(i));
+            length += fragments[i].length();
+        }
+        StringBuilder html = new StringBuilder(length);
+        for (String fragment : fragments) {
+            html.append(fragment);
+        }
+        return html.toString();
+    }
+
+    /**
+     * Renders one card without touching the cache.
+     */
+    String renderCard(Movie movie) {
+        Context context = new Context();
+        context.setVariable("movie", movie);
+        context.setVariable("contextPath", contextPath);
+        return templateEngine.process(CARD_TEMPLATE, context);
+    }
+
+    /**
+     * @return the number of cards currently cached
+     */
+    public int getCachedCardCount() {
+        return cards.byId.size();
+    }
+
+    private Cards currentCards() {
+        long version = movieService.getCatalogVersion();
+        Cards current = cards;
+        if (current.catalogVersion != version) {
+            logger.debug("Catalog version {} is new, starting a fresh card cache", version);
+            current = new Cards(version);
+            cards = current;
+        }
+        return current;
+    }
+
+    /**
+     * The cards rendered for one catalog version.
+     */
+    private final class Cards {
+        private final long catalogVersion;
+        private final ConcurrentMap<Long, RenderedCard> byId = new ConcurrentHashMap<>();
+
+        private Cards(long catalogVersion) {
+            this.catalogVersion = catalogVersion;
+        }
+
+        private String cardFor(Movie movie) {
+            if (!cacheEnabled) {
+                return renderCard(movie);
+            }
+            RenderedCard cached = byId.get(movie.getId());
+            if (cached != null && cached.movie == movie) {
+                return cached.html;
+            }
+            String html = renderCard(movie);
+            byId.put(movie.getId(), new RenderedCard(movie, html));
+            return html;
+        }
+    }
+
+    private static final class RenderedCard {
+        private final Movie movie;
+        private final String html;
+
+        private RenderedCard(Movie movie, String html) {
+            this.movie = movie;
+            this.html = html;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of the movie treasure chest, matey!
+ * Every snapshot carries a version so anything derived from it (cached search results and the like)
+ * can tell which catalog it was computed against. Structures that depend only on the catalog, such
+ * as the similar-movie neighbor lists, the sort permutations, the facet bitmaps and the trigram indexes
+ * the query planner searches with, are built once here alongside it.
+ */
+public class MovieCatalog {
+    private final long version;
+    private final List<Movie> movies;
+    private final Map<Long, Integer> ordinals;
+    private final SimilarMovieIndex similarMovies;
+    private final SortPermutations sortOrders;
+    private final FacetIndex facets;
+    private final QueryPlanner queryPlanner;
+
+    public MovieCatalog(long version, List<Movie> movies) {
+        this(version, movies, SimilarMovieIndex.DEFAULT_TOP_K);
+    }
+
+    public MovieCatalog(long version, List<Movie> movies, int similarTopK) {
+        this.version = version;
+        this.movies = Collections.unmodifiableList(new ArrayList<>(movies));
+        this.ordinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < this.movies.size(); ordinal++) {
+            ordinals.put(this.movies.get(ordinal).getId(), ordinal);
+        }
+        this.similarMovies = SimilarMovieIndex.build(this.movies, similarTopK);
+        this.sortOrders = new SortPermutations(this.movies);
+        this.facets = new FacetIndex(this.movies);
+        this.queryPlanner = new QueryPlanner(this.movies, ordinals);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public int size() {
+        return movies.size();
+    }
+
+    public Optional<Movie> findById(long id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? Optional.empty() : Optional.of(movies.get(ordinal));
+    }
+
+    /**
+     * Finds the movies matching the criteria, in catalog order, most selective predicate first.
+     */
+    public List<Movie> search(SearchCriteria criteria) {
+        return queryPlanner.search(criteria);
+    }
+
+    /**
+     * Runs the search and reports the plan the query planner chose for it.
+     */
+    public QueryPlan explain(SearchCriteria criteria) {
+        return queryPlanner.explain(criteria, version);
+    }
+
+    /**
+     * Gets the precomputed most similar movies, best match first.
+     *
+     * @return the similar movies, or an empty list for an unknown ID
+     */
+    public List<Movie> findSimilar(long id) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal == null) {
+            return Collections.emptyList();
+        }
+        int[] neighbors = similarMovies.neighborsOf(ordinal);
+        List<Movie> similar = new ArrayList<>(neighbors.length);
+        for (int neighbor : neighbors) {
+            similar.add(movies.get(neighbor));
+        }
+        return similar;
+    }
+
+    /**
+     * Puts movies in the given order using the precomputed sort permutations. Movies that are not
+     * part of this catalog (from another shard, say) are sorted by comparison instead; either way,
+     * ties keep catalog order, that is the order of the catalog file. Tied movies this catalog does
+     * not hold at all come after those it does, in the order they were given.
+     */
+    public List<Movie> sort(List<Movie> subset, MovieSort sort) {
+        if (sort.isCatalogOrder()) {
+            return subset;
+        }
+        if (subset == movies) {
+            return Collections.unmodifiableList(sortOrders.sortAll(sort));
+        }
+        int[] subsetOrdinals = ordinalsOf(subset);
+        if (subsetOrdinals == null) {
+            List<Movie> sorted = new ArrayList<>(subset);
+            sorted.sort(sort.getField().comparator(sort.isDescending())
+                .thenComparingInt(movie -> ordinals.getOrDefault(movie.getId(), Integer.MAX_VALUE)));
+            return Collections.unmodifiableList(sorted);
+        }
+        return Collections.unmodifiableList(sortOrders.sort(subsetOrdinals, sort));
+    }
+
+    /**
+     * Counts how many of the movies fall under each facet value, from the precomputed facet bitmaps.
+     * Movies that are not part of this catalog are counted one by one instead.
+     */
+    public FacetCounts countFacets(List<Movie> subset) {
+        if (subset == movies) {
+            return facets.countAll();
+        }
+        int[] subsetOrdinals = ordinalsOf(subset);
+        return subsetOrdinals == null ? FacetCounts.scan(subset) : facets.count(subsetOrdinals);
+    }
+
+    /**
+     * Gets the catalog ordinals of the movies.
+     *
+     * @return the ordinals, or {@code null} if any of the movies is not this catalog's own instance
+     */
+    private int[] ordinalsOf(List<Movie> subset) {
+        int[] subsetOrdinals = new int[subset.size()];
+        for (int i = 0; i < subsetOrdinals.length; i++) {
+            Movie movie = subset.get(i);
+            Integer ordinal = ordinals.get(movie.getId());
+            if (ordinal == null || movies.get(ordinal) != movie) {
+                return null;
+            }
+            subsetOrdinals[i] = ordinal;
+        }
+        return subsetOrdinals;
+    }
+}
@@ -0,0 +1,157 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams the whole movie treasure chest, with review aggregates, to an output stream, arrr!
+ * Movies are written one record at a time and flushed every few records, so the response starts
+ * right away and memory use does not grow with the size of the catalog.
+ * <p>
+ * Exports run on their own small thread pool, so long exports never tie up the threads shared by
+ * the rest of the application. An export whose thread is interrupted, as happens when it runs past
+ * its time limit, stops at the next record.
+ */
+@Component
+public class MovieCatalogExporter {
+    private static final Logger logger = LogManager.getLogger(MovieCatalogExporter.class);
+    private static final String CSV_HEADER =
+        "id,movieName,director,year,genre,duration,imdbRating,reviewCount,averageReviewRating,description";
+
+    private final MovieService movieService;
+    private final ReviewService reviewService;
+    private final int flushEvery;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    public MovieCatalogExporter(MovieService movieService, ReviewService reviewService, MovieProperties properties) {
+        this.movieService = movieService;
+        this.reviewService = reviewService;
+        this.flushEvery = Math.max(1, properties.getExport().getFlushEvery());
+        MovieProperties.Export settings = properties.getExport();
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("catalog-export-");
+        executor.setDaemon(true);
+        executor.setCorePoolSize(Math.max(1, settings.getConcurrency()));
+        executor.setMaxPoolSize(Math.max(1, settings.getConcurrency()));
+        executor.setQueueCapacity(Math.max(0, settings.getQueueCapacity()));
+        executor.initialize();
+    }
+
+    /**
+     * @return the bounded executor exports run on; it rejects exports once all threads and queue slots are taken
+     */
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Writes every movie of the current catalog in the given format. The stream is flushed but not closed.
+     *
+     * @return the number of movies written
+     */
+    public int export(ExportFormat format, OutputStream outputStream) throws IOException {
+        List<Movie> movies = movieService.getAllMovies();
+        Map<Long, ReviewSummary> reviewSummaries = reviewService.getReviewSummaries();
+        logger.info("Ahoy! Exporting {} movie treasures as {}", movies.size(), format);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+        int written = 0;
+        for (Movie movie : movies) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Arrr! Catalog export was cancelled after " + written + " movies");
+            }
+            ReviewSummary reviews = reviewSummaries.getOrDefault(movie.getId(), ReviewSummary.EMPTY);
+            if (format == ExportFormat.CSV) {
+                writeCsvRecord(writer, movie, reviews);
+            } else {
+                writeNdjsonRecord(writer, movie, reviews);
+            }
+            if (++written % flushEvery == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        logger.info("Export complete, {} movie treasures written", written);
+        return written;
+    }
+
+    private static void writeNdjsonRecord(Writer writer, Movie movie, ReviewSummary reviews) throws IOException {
+        JSONObject record = new JSONObject()
+            .put("id", movie.getId())
+            .put("movieName", movie.getMovieName())
+            .put("director", movie.getDirector())
+            .put("year", movie.getYear())
+            .put("genre", movie.getGenre())
+            .put("duration", movie.getDuration())
+            .put("imdbRating", movie.getImdbRating())
+            .put("reviewCount", reviews.getReviewCount())
+            .put("averageReviewRating", reviews.getAverageRating())
+            .put("description", movie.getDescription());
+        writer.write(record.toString());
+        writer.write('\n');
+    }
+
+    private static void writeCsvRecord(Writer writer, Movie movie, ReviewSummary reviews) throws IOException {
+        writer.write(Long.toString(movie.getId()));
+        writer.write(',');
+        writer.write(csvField(movie.getMovieName()));
+        writer.write(',');
+        writer.write(csvField(movie.getDirector()));
+        writer.write(',');
+        writer.write(Integer.toString(movie.getYear()));
+        writer.write(',');
+        writer.write(csvField(movie.getGenre()));
+        writer.write(',');
+        writer.write(Integer.toString(movie.getDuration()));
+        writer.write(',');
+        writer.write(Double.toString(movie.getImdbRating()));
+        writer.write(',');
+        writer.write(Integer.toString(reviews.getReviewCount()));
+        writer.write(',');
+        writer.write(String.format(Locale.ROOT, "%.2f", reviews.getAverageRating()));
+        writer.write(',');
+        writer.write(csvField(movie.getDescription()));
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quotes a CSV field when it holds a separator, quote or line break (RFC 4180).
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
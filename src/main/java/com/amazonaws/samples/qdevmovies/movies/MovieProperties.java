@@ -0,0 +1,621 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tunables for the movie treasure chest, bound from the {@code movies.*} keys in application.yml.
+ * Every setting has a sensible default so the services can also be built with {@code new} in tests.
+ */
+@ConfigurationProperties(prefix = "movies")
+public class MovieProperties {
+
+    private final Catalog catalog = new Catalog();
+    private final SearchCache searchCache = new SearchCache();
+    private final SearchCoalescing searchCoalescing = new SearchCoalescing();
+    private final Batch batch = new Batch();
+    private final Export export = new Export();
+    private final SimilarMovies similarMovies = new SimilarMovies();
+    private final Sharding sharding = new Sharding();
+    private final Leaderboards leaderboards = new Leaderboards();
+    private final ChangeStream changeStream = new ChangeStream();
+    private final BinaryCache binaryCache = new BinaryCache();
+    private final Tracing tracing = new Tracing();
+    private final Descriptions descriptions = new Descriptions();
+    private final Warmup warmup = new Warmup();
+    private final Admission admission = new Admission();
+    private final CardCache cardCache = new CardCache();
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public SearchCoalescing getSearchCoalescing() {
+        return searchCoalescing;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public SimilarMovies getSimilarMovies() {
+        return similarMovies;
+    }
+
+    public Sharding getSharding() {
+        return sharding;
+    }
+
+    public CardCache getCardCache() {
+        return cardCache;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public Descriptions getDescriptions() {
+        return descriptions;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public BinaryCache getBinaryCache() {
+        return binaryCache;
+    }
+
+    public ChangeStream getChangeStream() {
+        return changeStream;
+    }
+
+    public Leaderboards getLeaderboards() {
+        return leaderboards;
+    }
+
+    /**
+     * Where the catalog JSON is loaded from, as a Spring resource location such as
+     * {@code classpath:movies.json} or {@code file:/data/movies.json}.
+     */
+    public static class Catalog {
+        private String location = "classpath:movies.json";
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+    }
+
+    /**
+     * Bounds for the search result cache. When {@code maxBytes} is positive the cache is limited by
+     * the estimated size of the cached results, otherwise by the number of cached searches.
+     */
+    public static class SearchCache {
+        private boolean enabled = true;
+        private long maxEntries = 1024;
+        private long maxBytes = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    /**
+     * Whether identical concurrent searches share a single in-flight computation.
+     */
+    public static class SearchCoalescing {
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Limits for the batch lookup and batch search API.
+     */
+    public static class Batch {
+        private int maxIds = 500;
+        private int maxSearches = 100;
+
+        public int getMaxIds() {
+            return maxIds;
+        }
+
+        public void setMaxIds(int maxIds) {
+            this.maxIds = maxIds;
+        }
+
+        public int getMaxSearches() {
+            return maxSearches;
+        }
+
+        public void setMaxSearches(int maxSearches) {
+            this.maxSearches = maxSearches;
+        }
+    }
+
+    /**
+     * Streaming catalog export: how many records are written between flushes to the client, and how
+     * long the export may run. The export has its own timeout rather than the much shorter default one
+     * for async requests; 0 or less means no limit.
+     */
+    public static class Export {
+        private int flushEvery = 100;
+        private long timeoutMillis = 3_600_000;
+        private int concurrency = 4;
+        private int queueCapacity = 16;
+
+        public int getFlushEvery() {
+            return flushEvery;
+        }
+
+        public void setFlushEvery(int flushEvery) {
+            this.flushEvery = flushEvery;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * How many similar movies are precomputed for each movie and shown on its details page.
+     */
+    public static class SimilarMovies {
+        private int topK = SimilarMovieIndex.DEFAULT_TOP_K;
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+    }
+
+    /**
+     * Sharded mode: the catalog is partitioned by movie-ID hash across the listed nodes, and this
+     * instance owns the partition at {@code shardIndex}. {@code nodes} lists the base URL of every
+     * shard, this one included, in shard order.
+     */
+    public static class Sharding {
+        private boolean enabled = false;
+        private int shardIndex = 0;
+        private List<String> nodes = new ArrayList<>();
+        private long timeoutMillis = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getShardIndex() {
+            return shardIndex;
+        }
+
+        public void setShardIndex(int shardIndex) {
+            this.shardIndex = shardIndex;
+        }
+
+        public List<String> getNodes() {
+            return nodes;
+        }
+
+        public void setNodes(List<String> nodes) {
+            this.nodes = nodes;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    /**
+     * Caching of the rendered movie cards on the list and search pages. Turn it off while editing
+     * the card template so changes show up without a restart.
+     */
+    public static class CardCache {
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Admission control for the expensive endpoints. Each endpoint class has its own adaptive
+     * concurrency limit, so a storm of searches cannot starve the cheap detail lookups.
+     */
+    public static class Admission {
+        private boolean enabled = true;
+        private int retryAfterSeconds = 1;
+        private final Budget search = new Budget(20, 4, 200);
+        private final Budget listing = new Budget(20, 4, 200);
+        private final Budget lookup = new Budget(100, 20, 1000);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public Budget getSearch() {
+            return search;
+        }
+
+        public Budget getListing() {
+            return listing;
+        }
+
+        public Budget getLookup() {
+            return lookup;
+        }
+
+        /**
+         * Where one endpoint class's concurrency limit starts and how far it may move.
+         */
+        public static class Budget {
+            private int initialLimit;
+            private int minLimit;
+            private int maxLimit;
+
+            public Budget() {
+            }
+
+            Budget(int initialLimit, int minLimit, int maxLimit) {
+                this.initialLimit = initialLimit;
+                this.minLimit = minLimit;
+                this.maxLimit = maxLimit;
+            }
+
+            public int getInitialLimit() {
+                return initialLimit;
+            }
+
+            public void setInitialLimit(int initialLimit) {
+                this.initialLimit = initialLimit;
+            }
+
+            public int getMinLimit() {
+                return minLimit;
+            }
+
+            public void setMinLimit(int minLimit) {
+                this.minLimit = minLimit;
+            }
+
+            public int getMaxLimit() {
+                return maxLimit;
+            }
+
+            public void setMaxLimit(int maxLimit) {
+                this.maxLimit = maxLimit;
+            }
+        }
+    }
+
+    /**
+     * The warm-up traffic sent to the instance itself before it reports ready.
+     */
+    public static class Warmup {
+        private boolean enabled = true;
+        private int requests = 500;
+        private int concurrency = 4;
+        private long maxDurationSeconds = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public void setRequests(int requests) {
+            this.requests = requests;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public long getMaxDurationSeconds() {
+            return maxDurationSeconds;
+        }
+
+        public void setMaxDurationSeconds(long maxDurationSeconds) {
+            this.maxDurationSeconds = maxDurationSeconds;
+        }
+    }
+
+    /**
+     * Where movie descriptions are kept. {@code HEAP} keeps them on the movies; {@code DISK} moves
+     * them to a file that is read on demand, keeping the hottest in a cache of {@code cacheEntries}.
+     */
+    public static class Descriptions {
+        private Storage storage = Storage.HEAP;
+        private DescriptionStore.ReadMode readMode = DescriptionStore.ReadMode.POSITIONAL;
+        private String directory = "";
+        private int cacheEntries = 256;
+
+        public Storage getStorage() {
+            return storage;
+        }
+
+        public void setStorage(Storage storage) {
+            this.storage = storage;
+        }
+
+        public DescriptionStore.ReadMode getReadMode() {
+            return readMode;
+        }
+
+        public void setReadMode(DescriptionStore.ReadMode readMode) {
+            this.readMode = readMode;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getCacheEntries() {
+            return cacheEntries;
+        }
+
+        public void setCacheEntries(int cacheEntries) {
+            this.cacheEntries = cacheEntries;
+        }
+
+        public enum Storage {
+            HEAP,
+            DISK
+        }
+    }
+
+    /**
+     * Per-request stage timing, and the in-memory log of requests slower than {@code slowThresholdMillis}.
+     * The log keeps only the latest {@code slowLogCapacity} entries.
+     */
+    public static class Tracing {
+        private boolean enabled = true;
+        private long slowThresholdMillis = 250;
+        private int slowLogCapacity = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getSlowThresholdMillis() {
+            return slowThresholdMillis;
+        }
+
+        public void setSlowThresholdMillis(long slowThresholdMillis) {
+            this.slowThresholdMillis = slowThresholdMillis;
+        }
+
+        public int getSlowLogCapacity() {
+            return slowLogCapacity;
+        }
+
+        public void setSlowLogCapacity(int slowLogCapacity) {
+            this.slowLogCapacity = slowLogCapacity;
+        }
+    }
+
+    /**
+     * Keeping each movie's CBOR encoding until the catalog changes.
+     */
+    public static class BinaryCache {
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * The server-sent event stream of catalog changes at {@code /api/movies/changes}.
+     */
+    public static class ChangeStream {
+        private boolean enabled = true;
+        private int replayCapacity = 64;
+        private int maxSubscribers = 1000;
+        private int retryAfterSeconds = 5;
+        private long timeoutMillis = 1_800_000;
+        private long heartbeatSeconds = 15;
+        private int sendQueueCapacity = 128;
+        private long sendTimeoutMillis = 10_000;
+        private int senderThreads = 8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getReplayCapacity() {
+            return replayCapacity;
+        }
+
+        public void setReplayCapacity(int replayCapacity) {
+            this.replayCapacity = replayCapacity;
+        }
+
+        public int getMaxSubscribers() {
+            return maxSubscribers;
+        }
+
+        public void setMaxSubscribers(int maxSubscribers) {
+            this.maxSubscribers = maxSubscribers;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public long getHeartbeatSeconds() {
+            return heartbeatSeconds;
+        }
+
+        public void setHeartbeatSeconds(long heartbeatSeconds) {
+            this.heartbeatSeconds = heartbeatSeconds;
+        }
+
+        public int getSendQueueCapacity() {
+            return sendQueueCapacity;
+        }
+
+        public void setSendQueueCapacity(int sendQueueCapacity) {
+            this.sendQueueCapacity = sendQueueCapacity;
+        }
+
+        public long getSendTimeoutMillis() {
+            return sendTimeoutMillis;
+        }
+
+        public void setSendTimeoutMillis(long sendTimeoutMillis) {
+            this.sendTimeoutMillis = sendTimeoutMillis;
+        }
+
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            this.senderThreads = senderThreads;
+        }
+    }
+
+    /**
+     * How many top-rated movies each genre and decade leaderboard holds.
+     */
+    public static class Leaderboards {
+        private int topK = 10;
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+    }
+}
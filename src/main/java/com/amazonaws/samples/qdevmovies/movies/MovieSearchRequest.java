@@ -0,0 +1,48 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * One set of search criteria as sent by API callers, matey.
+ * Mirrors the query parameters of the search page: a valid ID overrides name and genre.
+ */
+public class MovieSearchRequest {
+    private String name;
+    private Long id;
+    private String genre;
+
+    public MovieSearchRequest() {
+    }
+
+    public MovieSearchRequest(String name, Long id, String genre) {
+        this.name = name;
+        this.id = id;
+        this.genre = genre;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public void setGenre(String genre) {
+        this.genre = genre;
+    }
+
+    public SearchCriteria toCriteria() {
+        return SearchCriteria.of(name, id, genre);
+    }
+}
@@ -0,0 +1,35 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.List;
+
+/**
+ * The answer to one search of a batch: the criteria as requested, the movies they found and the
+ * facet counts of those movies.
+ */
+public class MovieSearchResult {
+    private final MovieSearchRequest request;
+    private final List<Movie> movies;
+    private final FacetCounts facets;
+
+    public MovieSearchResult(MovieSearchRequest request, List<Movie> movies, FacetCounts facets) {
+        this.request = request;
+        this.movies = movies;
+        this.facets = facets;
+    }
+
+    public MovieSearchRequest getRequest() {
+        return request;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public int getCount() {
+        return movies.size();
+    }
+
+    public FacetCounts getFacets() {
+        return facets;
+    }
+}
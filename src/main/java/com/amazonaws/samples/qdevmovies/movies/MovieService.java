@@ -3,60 +3,223 @@ package com.amazonaws.samples.qdevmovies.movies;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.PreDestroy;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 public class MovieService {
     private static final Logger logger = LogManager.getLogger(MovieService.class);
-    private final List<Movie> movies;
-    private final Map<Long, Movie> movieMap;
+    private static final long ESTIMATED_SEARCH_RESULT_BYTES = 512;
+
+    private final AtomicLong catalogVersions = new AtomicLong();
+    private final Object reloadLock = new Object();
+    private final int similarTopK;
+    private final SearchResultCache<SearchKey, List<Movie>> searchCache;
+    private final SingleFlight<SearchKey, List<Movie>> searchFlights;
+    private final ShardRouter shardRouter;
+    private final String catalogLocation;
+    private final MovieProperties.Descriptions descriptionSettings;
+    private volatile DescriptionStore descriptionStore;
+    private final DescriptionStore.Retired retiredDescriptionStores = new DescriptionStore.Retired();
+    private volatile MovieCatalog catalog;
+    private final CatalogChangeLog catalogChanges;
+    private final LeaderboardIndex leaderboardIndex;
+    private volatile Leaderboards leaderboards;
 
     public MovieService() {
-        this.movies = loadMoviesFromJson();
-        this.movieMap = new HashMap<>();
+        this(new MovieProperties());
+    }
+
+    @Autowired
+    public MovieService(MovieProperties properties) {
+        this(properties, null);
+    }
+
+    /**
+     * Builds the service, reaching other shards through the given client when sharding is enabled.
+     * A {@code null} client means the shards are reached over HTTP at the configured nodes.
+     */
+    MovieService(MovieProperties properties, ShardClient shardClient) {
+        this.shardRouter = createShardRouter(properties.getSharding(), shardClient);
+        this.catalogLocation = properties.getCatalog().getLocation();
+        this.descriptionSettings = properties.getDescriptions();
+        this.similarTopK = properties.getSimilarMovies().getTopK();
+        this.catalog = new MovieCatalog(catalogVersions.incrementAndGet(), storeDescriptions(loadShardMovies()),
+            similarTopK);
+        this.catalogChanges = new CatalogChangeLog(properties.getChangeStream().getReplayCapacity(),
+            catalog.getVersion());
+        this.leaderboardIndex = new LeaderboardIndex(catalog.getMovies(), properties.getLeaderboards().getTopK());
+        this.leaderboards = leaderboardIndex.publish(catalog);
+        this.searchCache = createSearchCache(properties.getSearchCache());
+        this.searchFlights = properties.getSearchCoalescing().isEnabled() ? new SingleFlight<>() : null;
+    }
+
+    private static ShardRouter createShardRouter(MovieProperties.Sharding sharding, ShardClient shardClient) {
+        if (!sharding.isEnabled()) {
+            return null;
+        }
+        List<String> nodes = sharding.getNodes();
+        ShardClient client = shardClient != null ? shardClient
+            : new HttpShardClient(nodes, (int) sharding.getTimeoutMillis());
+        logger.info("Ahoy! Sharded mode enabled, this be shard {} of {}", sharding.getShardIndex(), nodes.size());
+        return new ShardRouter(sharding.getShardIndex(), nodes.size(), sharding.getTimeoutMillis(), client);
+    }
+
+    /**
+     * Loads the movies this instance owns: the whole chest, or only its partition in sharded mode.
+     */
+    private List<Movie> loadShardMovies() {
+        List<Movie> movies = loadMoviesFromJson();
+        if (shardRouter == null) {
+            return movies;
+        }
+        List<Movie> owned = new ArrayList<>();
         for (Movie movie : movies) {
-            movieMap.put(movie.getId(), movie);
+            if (shardRouter.isLocal(movie.getId())) {
+                owned.add(movie);
+            }
         }
+        logger.info("Shard {} owns {} of {} movie treasures", shardRouter.getShardIndex(), owned.size(), movies.size());
+        return owned;
+    }
+
+    /**
+     * Moves the descriptions to a file on disk when configured to; otherwise leaves the movies as they are.
+     * The stores of earlier catalogs stay open for as long as any of their movies is still held, by a
+     * running request or export, say; the files of those nobody can read any more are closed here.
+     */
+    private List<Movie> storeDescriptions(List<Movie> movies) {
+        if (descriptionSettings.getStorage() != MovieProperties.Descriptions.Storage.DISK) {
+            return movies;
+        }
+        DescriptionStore.Loaded loaded = DescriptionStore.store(movies, descriptionSettings);
+        int closed = retiredDescriptionStores.closeUnreachable();
+        if (closed > 0) {
+            logger.debug("Closed {} description files no movie reads from any more", closed);
+        }
+        if (descriptionStore != null) {
+            retiredDescriptionStores.retire(descriptionStore);
+        }
+        descriptionStore = loaded.store;
+        return loaded.movies;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (shardRouter != null) {
+            shardRouter.shutdown();
+        }
+        synchronized (reloadLock) {
+            retiredDescriptionStores.closeAll();
+            closeQuietly(descriptionStore);
+        }
+    }
+
+    private static void closeQuietly(DescriptionStore store) {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.warn("Could not clean up the movie description file: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reloads the movie treasure chest from its configured location and starts serving it as a new
+     * catalog version, arrr! Requests already running finish against the snapshot they started with.
+     * Everything derived from the catalog (cached searches, rendered cards, encoded movies) is keyed
+     * by version, so nothing computed from the old catalog is served for the new one. Reloads run one
+     * at a time; a failed reload leaves the current catalog in place. Each reload is compared with the
+     * catalog it replaces; the movies added, updated and removed are moved on the
+     * {@link #getLeaderboards() leaderboards} and appended to the {@link #getCatalogChanges() change log}.
+     *
+     * @return the catalog now being served
+     * @throws MovieDataLoadException if the catalog could not be read
+     */
+    public MovieCatalog reloadCatalog() {
+        synchronized (reloadLock) {
+            long started = System.nanoTime();
+            List<Movie> movies = storeDescriptions(loadShardMovies());
+            MovieCatalog previous = catalog;
+            MovieCatalog reloaded = new MovieCatalog(catalogVersions.incrementAndGet(), movies, similarTopK);
+            CatalogChange change = CatalogChange.between(previous, reloaded, Instant.now().toString());
+            leaderboardIndex.apply(previous, reloaded, change);
+            Leaderboards reloadedLeaderboards = leaderboardIndex.publish(reloaded);
+            catalog = reloaded;
+            leaderboards = reloadedLeaderboards;
+            if (searchCache != null) {
+                searchCache.invalidateAll();
+            }
+            logger.info("Ahoy! Reloaded the treasure chest as version {} with {} movies in {} ms: "
+                    + "{} added, {} updated, {} removed",
+                reloaded.getVersion(), reloaded.size(), (System.nanoTime() - started) / 1_000_000,
+                change.getAdded().size(), change.getUpdated().size(), change.getRemoved().size());
+            catalogChanges.append(change);
+            return reloaded;
+        }
+    }
+
+    private static SearchResultCache<SearchKey, List<Movie>> createSearchCache(MovieProperties.SearchCache settings) {
+        if (!settings.isEnabled()) {
+            return null;
+        }
+        if (settings.getMaxBytes() > 0) {
+            return SearchResultCache.ofMaximumBytes(settings.getMaxBytes(), ESTIMATED_SEARCH_RESULT_BYTES,
+                MovieService::estimateSearchResultBytes);
+        }
+        return SearchResultCache.ofMaximumEntries(settings.getMaxEntries());
+    }
+
+    /**
+     * Rough retained size of a cached search: the key strings plus one reference per movie in the
+     * result. The movies themselves are shared with the catalog, so they are not counted.
+     */
+    private static long estimateSearchResultBytes(SearchKey key, List<Movie> results) {
+        SearchCriteria criteria = key.criteria;
+        long keyBytes = 64
+            + (criteria.getName() == null ? 0 : 40 + 2L * criteria.getName().length())
+            + (criteria.getGenre() == null ? 0 : 40 + 2L * criteria.getGenre().length());
+        return keyBytes + 32 + 8L * results.size();
     }
 
     private List<Movie> loadMoviesFromJson() {
         List<Movie> movieList = new ArrayList<>();
-        try {
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream("movies.json");
-            if (inputStream == null) {
-                throw new MovieDataLoadException("Arrr! Movie treasure chest file 'movies.json' not found in resources, matey!");
-            }
-            
+        Resource catalogResource = new DefaultResourceLoader().getResource(catalogLocation);
+        if (!catalogResource.exists()) {
+            throw new MovieDataLoadException("Arrr! Movie treasure chest file '" + catalogLocation + "' not found, matey!");
+        }
+        try (InputStream inputStream = catalogResource.getInputStream()) {
             Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name());
             String jsonContent = scanner.useDelimiter("\\A").next();
             scanner.close();
             
             JSONArray moviesArray = new JSONArray(jsonContent);
             for (int i = 0; i < moviesArray.length(); i++) {
-                JSONObject movieObj = moviesArray.getJSONObject(i);
-                movieList.add(new Movie(
-                    movieObj.getLong("id"),
-                    movieObj.getString("movieName"),
-                    movieObj.getString("director"),
-                    movieObj.getInt("year"),
-                    movieObj.getString("genre"),
-                    movieObj.getString("description"),
-                    movieObj.getInt("duration"),
-                    movieObj.getDouble("imdbRating")
-                ));
+                movieList.add(parseMovie(moviesArray.getJSONObject(i)));
             }
         } catch (JSONException e) {
             logger.error("Scurvy bug in JSON parsing: {}", e.getMessage(), e);
@@ -71,71 +234,353 @@ public class MovieService {
         return movieList;
     }
 
+    /**
+     * Maps one movie object of the catalog JSON (also used between shards) to a Movie.
+     */
+    static Movie parseMovie(JSONObject movieObj) {
+        return new Movie(
+            movieObj.getLong("id"),
+            movieObj.getString("movieName"),
+            movieObj.getString("director"),
+            movieObj.getInt("year"),
+            movieObj.getString("genre"),
+            movieObj.getString("description"),
+            movieObj.getInt("duration"),
+            movieObj.getDouble("imdbRating")
+        );
+    }
+
     public List<Movie> getAllMovies() {
-        return movies;
+        if (shardRouter != null) {
+            return shardRouter.allMovies(this::getLocalMovies).getMovies();
+        }
+        return catalog.getMovies();
     }
 
     public Optional<Movie> getMovieById(Long id) {
         if (id == null || id <= 0) {
             return Optional.empty();
         }
-        return Optional.ofNullable(movieMap.get(id));
+        if (shardRouter != null && !shardRouter.isLocal(id)) {
+            return shardRouter.fetchRemote(id);
+        }
+        return catalog.findById(id);
+    }
+
+    /**
+     * Gets only the movies held by this instance. Same as {@link #getAllMovies()} unless sharded.
+     */
+    public List<Movie> getLocalMovies() {
+        return catalog.getMovies();
+    }
+
+    /**
+     * Looks a movie up in this instance's own catalog, without asking other shards.
+     */
+    public Optional<Movie> getLocalMovieById(long id) {
+        return catalog.findById(id);
+    }
+
+    /**
+     * Runs a search against this instance's own catalog only, without caching or asking other shards.
+     * This be what each shard answers during a scatter-gather search.
+     */
+    public List<Movie> searchLocalMovieTreasures(SearchCriteria criteria) {
+        MovieCatalog current = catalog;
+        return criteria.isEmpty() ? current.getMovies() : findMovieTreasures(current, criteria);
+    }
+
+    /**
+     * Gets the movies most similar to the given one by genre, director, era and rating, arrr!
+     * The neighbor lists are precomputed when the catalog is built, so this is a constant-time lookup.
+     *
+     * @param id The movie ID
+     * @return The similar movies, best match first, or an empty list for an unknown ID
+     */
+    public List<Movie> getSimilarMovies(long id) {
+        if (shardRouter != null && !shardRouter.isLocal(id)) {
+            return shardRouter.fetchRemoteSimilar(id);
+        }
+        return catalog.findSimilar(id);
+    }
+
+    /**
+     * Gets the movies similar to one of this instance's own movies, without asking other shards.
+     * This be what a shard answers when another one asks about a movie it owns.
+     */
+    public List<Movie> getLocalSimilarMovies(long id) {
+        return catalog.findSimilar(id);
+    }
+
+    /**
+     * Gets the version of the catalog currently being served.
+     *
+     * @return the catalog version, starting at 1 for the catalog loaded at startup
+     */
+    public long getCatalogVersion() {
+        return catalog.getVersion();
+    }
+
+    /**
+     * Gets the log of recent catalog changes, for clients catching up from an older version and for
+     * anyone who wants to hear about reloads as they happen.
+     */
+    public CatalogChangeLog getCatalogChanges() {
+        return catalogChanges;
+    }
+
+    /**
+     * Gets the top-rated movies of every genre token and decade, as materialized for the current
+     * catalog. In sharded mode these rank only this instance's own movies.
+     */
+    public Leaderboards getLeaderboards() {
+        return leaderboards;
     }
 
     /**
      * Searches for movies based on the provided criteria, matey!
-     * This method be the treasure map to find yer desired movies.
+     * This method be the treasure map to find yer desired movies. Results are cached per normalized
+     * criteria and catalog version, so the popular treasure hunts are only computed once.
      * 
      * @param name The movie name to search for (partial matches allowed, arrr!)
      * @param id The specific movie ID to find
      * @param genre The genre to filter by (partial matches allowed)
-     * @return List of movies matching the search criteria
-     * @throws InvalidSearchCriteriaException if no valid search criteria provided
+     * @return List of movies matching the search criteria, or the whole chest when no criteria be given
      */
     public List<Movie> searchMovieTreasures(String name, Long id, String genre) {
         logger.info("Ahoy! Starting treasure hunt for movies with name: '{}', id: '{}', genre: '{}'", 
                    name, id, genre);
-        
-        // Validate search criteria first, ye scurvy dog!
-        if (!isValidSearchCriteria(name, id, genre)) {
-            throw new InvalidSearchCriteriaException();
+        try (RequestTrace.Span span = RequestTrace.span("MovieService.search")) {
+            return search(SearchCriteria.of(name, id, genre));
+        }
+    }
+
+    private List<Movie> search(SearchCriteria criteria) {
+        if (criteria.isEmpty()) {
+            logger.debug("No search criteria provided, returning the whole treasure chest");
+            return getAllMovies();
+        }
+        MovieCatalog current = catalog;
+        SearchKey searchKey = new SearchKey(criteria, current.getVersion());
+        if (searchCache != null && isCacheable(criteria)) {
+            List<Movie> cachedTreasures = searchCache.getIfPresent(searchKey, !WarmupRunner.isWarmupRequest());
+            if (cachedTreasures != null) {
+                logger.debug("Search cache hit for {}, found {} movie treasures", criteria, cachedTreasures.size());
+                return cachedTreasures;
+            }
+        }
+        if (searchFlights == null) {
+            return findAndCacheMovieTreasures(current, searchKey);
+        }
+        // Identical searches arriving together share one hunt instead of each scanning the chest
+        return searchFlights.execute(searchKey, () -> findAndCacheMovieTreasures(current, searchKey));
+    }
+
+    /**
+     * Tells whether a search is answered from this instance's catalog alone. The cache key only holds
+     * the local catalog version, and other shards reload without this one noticing, so answers merged
+     * from other shards are never cached.
+     */
+    private boolean isCacheable(SearchCriteria criteria) {
+        return shardRouter == null || (criteria.getId() != null && shardRouter.isLocal(criteria.getId()));
+    }
+
+    private List<Movie> findAndCacheMovieTreasures(MovieCatalog current, SearchKey searchKey) {
+        if (shardRouter != null) {
+            return findShardedTreasures(current, searchKey);
+        }
+        return cacheTreasures(searchKey, findMovieTreasures(current, searchKey.criteria));
+    }
+
+    /**
+     * Sharded search: an ID goes straight to its owning shard, anything else is scattered to every
+     * shard. Only lookups of this shard's own movies are cached; see {@link #isCacheable}.
+     */
+    private List<Movie> findShardedTreasures(MovieCatalog current, SearchKey searchKey) {
+        SearchCriteria criteria = searchKey.criteria;
+        if (criteria.getId() != null) {
+            if (shardRouter.isLocal(criteria.getId())) {
+                return cacheTreasures(searchKey, findMovieTreasures(current, criteria));
+            }
+            return shardRouter.fetchRemote(criteria.getId())
+                .map(Collections::singletonList)
+                .orElse(Collections.emptyList());
+        }
+        ShardRouter.Gathered gathered = shardRouter.search(criteria, () -> findMovieTreasures(current, criteria));
+        List<Movie> treasureChest = Collections.unmodifiableList(gathered.getMovies());
+        logger.info("Gathered {} movie treasures from {} shards{}", treasureChest.size(), shardRouter.getShardCount(),
+            gathered.isComplete() ? "" : ", some shards missing");
+        return treasureChest;
+    }
+
+    private List<Movie> cacheTreasures(SearchKey searchKey, List<Movie> treasureChest) {
+        if (searchCache != null) {
+            searchCache.put(searchKey, treasureChest);
+        }
+        return treasureChest;
+    }
+
+    /**
+     * Looks up many movie treasures at once, arrr!
+     * Each ID goes through {@link #getMovieById(Long)}; duplicates are returned once and IDs that
+     * match no movie are left out.
+     *
+     * @param ids The movie IDs to find, in the order the caller wants them back
+     * @return The movies found, in request order
+     */
+    public List<Movie> getMoviesByIds(List<Long> ids) {
+        logger.debug("Fetching a batch of {} movie treasures by ID", ids.size());
+        List<Movie> found = new ArrayList<>(ids.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            getMovieById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    /**
+     * Runs a whole batch of treasure hunts in one go, me hearty!
+     * Cached searches are answered from the search cache and ID searches by direct lookup; all the
+     * remaining name/genre searches are answered together in a single pass over the catalog.
+     *
+     * @param criteriaList The searches to run
+     * @return One result list per search, in the same order as the criteria
+     */
+    public List<List<Movie>> searchMovieTreasuresBatch(List<SearchCriteria> criteriaList) {
+        logger.info("Ahoy! Starting a batch of {} treasure hunts", criteriaList.size());
+        if (shardRouter != null) {
+            return searchShardedBatch(criteriaList);
+        }
+        MovieCatalog current = catalog;
+        Map<SearchCriteria, List<Movie>> answers = new HashMap<>();
+        Map<SearchCriteria, List<Movie>> pending = new LinkedHashMap<>();
+        boolean countStats = !WarmupRunner.isWarmupRequest();
+
+        for (SearchCriteria criteria : criteriaList) {
+            if (answers.containsKey(criteria) || pending.containsKey(criteria)) {
+                continue;
+            }
+            if (criteria.isEmpty()) {
+                answers.put(criteria, current.getMovies());
+                continue;
+            }
+            SearchKey searchKey = new SearchKey(criteria, current.getVersion());
+            List<Movie> cachedTreasures = searchCache == null ? null : searchCache.getIfPresent(searchKey, countStats);
+            if (cachedTreasures != null) {
+                answers.put(criteria, cachedTreasures);
+            } else if (criteria.getId() != null) {
+                answers.put(criteria, findAndCacheMovieTreasures(current, searchKey));
+            } else {
+                pending.put(criteria, new ArrayList<>());
+            }
         }
         
-        List<Movie> treasureChest = new ArrayList<>(movies);
+        if (!pending.isEmpty()) {
+            scanCatalog(current, pending);
+            for (Map.Entry<SearchCriteria, List<Movie>> search : pending.entrySet()) {
+                SearchKey searchKey = new SearchKey(search.getKey(), current.getVersion());
+                answers.put(search.getKey(), cacheTreasures(searchKey, search.getValue()));
+            }
+        }
         
-        try {
-            // Filter by ID first, as it be the most specific search, arrr!
-            if (id != null && id > 0) {
-                logger.debug("Searching for movie treasure with ID: {}", id);
-                Optional<Movie> movieTreasure = getMovieById(id);
-                if (movieTreasure.isPresent()) {
-                    treasureChest = List.of(movieTreasure.get());
-                    logger.info("Found movie treasure with ID {}: '{}'", id, movieTreasure.get().getMovieName());
-                } else {
-                    logger.warn("No treasure found with ID: {}", id);
-                    treasureChest = new ArrayList<>();
-                }
+        logger.info("Batch treasure hunt complete! Answered {} searches, {} with a catalog scan",
+                   criteriaList.size(), pending.size());
+        return inRequestOrder(criteriaList, answers);
+    }
+
+    /**
+     * Runs a whole batch of searches against this instance's own catalog only, without caching or
+     * asking other shards, the name/genre ones together in a single pass over the catalog.
+     * This be what each shard answers when a sharded batch is scattered.
+     *
+     * @param criteriaList The searches to run
+     * @return One result list per search, in the same order as the criteria
+     */
+    public List<List<Movie>> searchLocalMovieTreasuresBatch(List<SearchCriteria> criteriaList) {
+        return searchLocalBatch(catalog, criteriaList);
+    }
+
+    private List<List<Movie>> searchLocalBatch(MovieCatalog current, List<SearchCriteria> criteriaList) {
+        Map<SearchCriteria, List<Movie>> answers = new HashMap<>();
+        Map<SearchCriteria, List<Movie>> pending = new LinkedHashMap<>();
+        for (SearchCriteria criteria : criteriaList) {
+            if (answers.containsKey(criteria) || pending.containsKey(criteria)) {
+                continue;
+            }
+            if (criteria.isEmpty()) {
+                answers.put(criteria, current.getMovies());
+            } else if (criteria.getId() != null) {
+                answers.put(criteria, findMovieTreasures(current, criteria));
             } else {
-                // Filter by name if provided, ye scurvy dog!
-                if (name != null && !name.trim().isEmpty()) {
-                    String searchName = name.trim().toLowerCase();
-                    logger.debug("Filtering treasure chest by name containing: '{}'", searchName);
-                    treasureChest = treasureChest.stream()
-                        .filter(movie -> movie.getMovieName().toLowerCase().contains(searchName))
-                        .collect(Collectors.toList());
-                    logger.debug("Found {} movies matching name criteria", treasureChest.size());
-                }
-                
-                // Filter by genre if provided, me hearty!
-                if (genre != null && !genre.trim().isEmpty()) {
-                    String searchGenre = genre.trim().toLowerCase();
-                    logger.debug("Filtering treasure chest by genre containing: '{}'", searchGenre);
-                    treasureChest = treasureChest.stream()
-                        .filter(movie -> movie.getGenre().toLowerCase().contains(searchGenre))
-                        .collect(Collectors.toList());
-                    logger.debug("Found {} movies matching genre criteria", treasureChest.size());
+                pending.put(criteria, new ArrayList<>());
+            }
+        }
+        scanCatalog(current, pending);
+        answers.putAll(pending);
+        return inRequestOrder(criteriaList, answers);
+    }
+
+    /**
+     * Sharded batch: lookups of this shard's own movies are answered (and cached) locally, and all
+     * the other searches are scattered together, as a single call to every shard.
+     */
+    private List<List<Movie>> searchShardedBatch(List<SearchCriteria> criteriaList) {
+        MovieCatalog current = catalog;
+        Map<SearchCriteria, List<Movie>> answers = new HashMap<>();
+        List<SearchCriteria> scattered = new ArrayList<>();
+        for (SearchCriteria criteria : new LinkedHashSet<>(criteriaList)) {
+            if (criteria.getId() != null && shardRouter.isLocal(criteria.getId())) {
+                answers.put(criteria, search(criteria));
+            } else {
+                scattered.add(criteria);
+            }
+        }
+
+        if (!scattered.isEmpty()) {
+            List<ShardRouter.Gathered> gathered = shardRouter.searchBatch(scattered,
+                () -> searchLocalBatch(current, scattered));
+            for (int i = 0; i < scattered.size(); i++) {
+                answers.put(scattered.get(i), Collections.unmodifiableList(gathered.get(i).getMovies()));
+            }
+            logger.info("Gathered {} searches from {} shards{}", scattered.size(), shardRouter.getShardCount(),
+                gathered.get(0).isComplete() ? "" : ", some shards missing");
+        }
+        return inRequestOrder(criteriaList, answers);
+    }
+
+    /**
+     * Fills every pending search with the movies it matches, all in a single pass over the catalog.
+     */
+    private static void scanCatalog(MovieCatalog current, Map<SearchCriteria, List<Movie>> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        logger.debug("Scanning the treasure chest once for {} searches", pending.size());
+        for (Movie movie : current.getMovies()) {
+            String lowerMovieName = movie.getMovieName().toLowerCase(Locale.ROOT);
+            String lowerGenre = movie.getGenre().toLowerCase(Locale.ROOT);
+            for (Map.Entry<SearchCriteria, List<Movie>> search : pending.entrySet()) {
+                if (search.getKey().matchesLowerCase(lowerMovieName, lowerGenre)) {
+                    search.getValue().add(movie);
                 }
             }
+        }
+        pending.replaceAll((criteria, movies) -> Collections.unmodifiableList(movies));
+    }
+
+    private static List<List<Movie>> inRequestOrder(List<SearchCriteria> criteriaList,
+                                                    Map<SearchCriteria, List<Movie>> answers) {
+        List<List<Movie>> results = new ArrayList<>(criteriaList.size());
+        for (SearchCriteria criteria : criteriaList) {
+            results.add(answers.get(criteria));
+        }
+        return results;
+    }
+
+    private List<Movie> findMovieTreasures(MovieCatalog current, SearchCriteria criteria) {
+        List<Movie> treasureChest;
+        try (RequestTrace.Span span = RequestTrace.span("MovieService.filter")) {
+            logger.debug("Planning treasure hunt for {}", criteria);
+            treasureChest = current.search(criteria);
         } catch (IllegalArgumentException e) {
             logger.error("Invalid search parameter provided: {}", e.getMessage(), e);
             throw new InvalidSearchCriteriaException("Arrr! Invalid search parameters provided, matey!", e);
@@ -145,6 +590,73 @@ public class MovieService {
         return treasureChest;
     }
 
+    /**
+     * Runs a search against the local catalog, bypassing the result cache, and reports the plan the
+     * query planner chose: the order of the predicates, how each reached its rows, the estimated and
+     * actual row counts, and the time spent on every step. In sharded mode only this shard is explained.
+     *
+     * @param name The movie name to search for
+     * @param id The specific movie ID to find
+     * @param genre The genre to filter by
+     * @return the executed plan; a search without criteria has no steps and returns the whole chest
+     */
+    public QueryPlan explainSearch(String name, Long id, String genre) {
+        SearchCriteria criteria = SearchCriteria.of(name, id, genre);
+        QueryPlan plan = catalog.explain(criteria);
+        logger.info("Explained treasure hunt for {}: {} movies in {} steps", criteria, plan.getResultCount(),
+            plan.getSteps().size());
+        return plan;
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of the search result cache, arrr!
+     *
+     * @return the cache stats, or empty when the search cache be disabled
+     */
+    public Optional<SearchResultCache.Stats> getSearchCacheStats() {
+        return searchCache == null ? Optional.empty() : Optional.of(searchCache.stats());
+    }
+
+    /**
+     * Gets the counters of the search coalescing, showing how many hunts were saved by sharing
+     * an identical one already in flight.
+     *
+     * @return the coalescing stats, or empty when coalescing be disabled
+     */
+    public Optional<SingleFlight.Stats> getSearchCoalescingStats() {
+        return searchFlights == null ? Optional.empty() : Optional.of(searchFlights.stats());
+    }
+
+    /**
+     * Gets the counters of the cache for descriptions read from disk.
+     *
+     * @return the cache stats, or empty when descriptions stay on the heap or the cache be disabled
+     */
+    public Optional<SearchResultCache.Stats> getDescriptionCacheStats() {
+        DescriptionStore store = descriptionStore;
+        return store == null ? Optional.empty() : Optional.ofNullable(store.cacheStats());
+    }
+
+    /**
+     * Puts movies, such as search results, in the requested order using the current catalog's
+     * precomputed sort permutations.
+     */
+    public List<Movie> sortMovies(List<Movie> movies, MovieSort sort) {
+        try (RequestTrace.Span span = RequestTrace.span("MovieService.sort")) {
+            return catalog.sort(movies, sort);
+        }
+    }
+
+    /**
+     * Counts genre, decade, rating band and duration band values over movies such as a search
+     * result, using the current catalog's facet bitmaps.
+     */
+    public FacetCounts getFacetCounts(List<Movie> movies) {
+        try (RequestTrace.Span span = RequestTrace.span("MovieService.facets")) {
+            return catalog.countFacets(movies);
+        }
+    }
+
     /**
      * Gets all available genres from the movie treasure chest, arrr!
      * Useful for populating search forms and helping landlubbers find their preferred genres.
@@ -153,8 +665,8 @@ public class MovieService {
      */
     public List<String> getAllGenreTreasures() {
         logger.debug("Gathering all genre treasures from the movie chest");
-        try {
-            List<String> genres = movies.stream()
+        try (RequestTrace.Span span = RequestTrace.span("MovieService.genres")) {
+            List<String> genres = getAllMovies().stream()
                 .map(Movie::getGenre)
                 .distinct()
                 .sorted()
@@ -191,4 +703,35 @@ public class MovieService {
         
         return isValid;
     }
+
+    /**
+     * Identity of a search for caching and coalescing: the normalized criteria plus the catalog version
+     * they were run against, so a result computed from an older catalog can never be served for a newer one.
+     */
+    private static final class SearchKey {
+        private final SearchCriteria criteria;
+        private final long catalogVersion;
+
+        private SearchKey(SearchCriteria criteria, long catalogVersion) {
+            this.criteria = criteria;
+            this.catalogVersion = catalogVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SearchKey)) {
+                return false;
+            }
+            SearchKey that = (SearchKey) o;
+            return catalogVersion == that.catalogVersion && criteria.equals(that.criteria);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * criteria.hashCode() + Long.hashCode(catalogVersion);
+        }
+    }
 }
@@ -0,0 +1,138 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * How a list of movie treasures is ordered: a field and a direction, or the catalog's own order.
+ */
+public final class MovieSort {
+    /** The order of the catalog file. */
+    public static final MovieSort CATALOG_ORDER = new MovieSort(null, false);
+
+    /**
+     * The fields movies can be sorted by, each with the direction people usually want first.
+     */
+    public enum Field {
+        TITLE("Title", false, Comparator.comparing(Movie::getMovieName, String.CASE_INSENSITIVE_ORDER)),
+        YEAR("Year", true, Comparator.comparingInt(Movie::getYear)),
+        RATING("Rating", true, Comparator.comparingDouble(Movie::getImdbRating)),
+        DURATION("Duration", false, Comparator.comparingInt(Movie::getDuration));
+
+        private final String label;
+        private final boolean descendingByDefault;
+        private final Comparator<Movie> ascending;
+
+        Field(String label, boolean descendingByDefault, Comparator<Movie> ascending) {
+            this.label = label;
+            this.descendingByDefault = descendingByDefault;
+            this.ascending = ascending;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getParameter() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public boolean isDescendingByDefault() {
+            return descendingByDefault;
+        }
+
+        Comparator<Movie> comparator(boolean descending) {
+            return descending ? ascending.reversed() : ascending;
+        }
+    }
+
+    private final Field field;
+    private final boolean descending;
+
+    private MovieSort(Field field, boolean descending) {
+        this.field = field;
+        this.descending = descending;
+    }
+
+    public static MovieSort by(Field field, boolean descending) {
+        return new MovieSort(Objects.requireNonNull(field), descending);
+    }
+
+    /**
+     * Parses the {@code sort} and {@code direction} request parameters, case-insensitively.
+     * A blank sort means catalog order; a blank direction means the field's usual direction.
+     *
+     * @throws IllegalArgumentException if either parameter be unknown
+     */
+    public static MovieSort fromParameters(String sort, String direction) {
+        if (sort == null || sort.trim().isEmpty()) {
+            return CATALOG_ORDER;
+        }
+        Field field = null;
+        for (Field candidate : Field.values()) {
+            if (candidate.getParameter().equals(sort.trim().toLowerCase(Locale.ROOT))) {
+                field = candidate;
+            }
+        }
+        if (field == null) {
+            throw new IllegalArgumentException(
+                "Arrr! Unknown sort '" + sort + "', try title, year, rating or duration, matey!");
+        }
+        if (direction == null || direction.trim().isEmpty()) {
+            return by(field, field.isDescendingByDefault());
+        }
+        switch (direction.trim().toLowerCase(Locale.ROOT)) {
+            case "asc":
+                return by(field, false);
+            case "desc":
+                return by(field, true);
+            default:
+                throw new IllegalArgumentException("Arrr! Unknown sort direction '" + direction + "', try asc or desc!");
+        }
+    }
+
+    public boolean isCatalogOrder() {
+        return field == null;
+    }
+
+    /**
+     * @return the sort field, or {@code null} for catalog order
+     */
+    public Field getField() {
+        return field;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return the {@code direction} request parameter for this sort
+     */
+    public String getDirectionParameter() {
+        return descending ? "desc" : "asc";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MovieSort)) {
+            return false;
+        }
+        MovieSort that = (MovieSort) o;
+        return field == that.field && descending == that.descending;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, descending);
+    }
+
+    @Override
+    public String toString() {
+        return isCatalogOrder() ? "catalog order" : field.getParameter() + " " + getDirectionParameter();
+    }
+}
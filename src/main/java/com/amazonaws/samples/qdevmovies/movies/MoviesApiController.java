@@ -0,0 +1,258 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ahoy! JSON endpoints for services that need movie treasures in bulk rather than as HTML pages.
+ * Callers that send {@code Accept: application/cbor} get the same data encoded as CBOR instead,
+ * written by the {@link CborMovieConverter}.
+ */
+@RestController
+@RequestMapping("/api/movies")
+public class MoviesApiController {
+    private static final Logger logger = LogManager.getLogger(MoviesApiController.class);
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private MovieProperties movieProperties;
+
+    @Autowired
+    private MovieCatalogExporter catalogExporter;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private CatalogChangeStream changeStream;
+
+    /**
+     * Fetches many movies by ID in one round trip, as JSON or CBOR.
+     *
+     * @param ids The movie IDs to fetch
+     * @return The movies found, in request order; unknown IDs are left out
+     */
+    @PostMapping("/batch")
+    public List<Movie> getMoviesBatch(@RequestBody List<Long> ids) {
+        logger.info("Fetching a batch of {} movie treasures", ids.size());
+        int maxIds = movieProperties.getBatch().getMaxIds();
+        if (ids.size() > maxIds) {
+            throw new InvalidSearchCriteriaException(
+                String.format("Arrr! A batch can hold at most %d movie IDs, matey!", maxIds));
+        }
+        return movieService.getMoviesByIds(ids);
+    }
+
+    /**
+     * Runs many searches in one round trip, answered together by a single pass over the catalog,
+     * as JSON or CBOR.
+     *
+     * @param requests The search criteria sets, each with the same meaning as the search page parameters
+     * @return One result per search, in request order, each with the facet counts of its movies
+     */
+    @PostMapping("/batch-search")
+    public List<MovieSearchResult> searchMoviesBatch(@RequestBody List<MovieSearchRequest> requests) {
+        logger.info("Running a batch of {} treasure hunts", requests.size());
+        int maxSearches = movieProperties.getBatch().getMaxSearches();
+        if (requests.size() > maxSearches) {
+            throw new InvalidSearchCriteriaException(
+                String.format("Arrr! A batch can hold at most %d searches, matey!", maxSearches));
+        }
+
+        List<SearchCriteria> criteriaList = new ArrayList<>(requests.size());
+        for (MovieSearchRequest request : requests) {
+            criteriaList.add(request.toCriteria());
+        }
+        List<List<Movie>> treasures = movieService.searchMovieTreasuresBatch(criteriaList);
+
+        List<MovieSearchResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            List<Movie> found = treasures.get(i);
+            results.add(new MovieSearchResult(requests.get(i), found, movieService.getFacetCounts(found)));
+        }
+        return results;
+    }
+
+    /**
+     * Gets the reviews of one movie.
+     *
+     * @param movieId The movie ID
+     * @return The movie's reviews, as JSON or CBOR, or 404 for an unknown movie
+     */
+    @GetMapping("/{id}/reviews")
+    public List<Review> getMovieReviews(@PathVariable("id") Long movieId) {
+        if (!movieService.getMovieById(movieId).isPresent()) {
+            throw new MovieNotFoundException(movieId);
+        }
+        return reviewService.getReviewsForMovie(movieId);
+    }
+
+    /**
+     * Streams the whole catalog, with review aggregates, as NDJSON or CSV.
+     * Records are flushed as they are written, so the transfer starts before the export is complete.
+     * The export runs on the exporter's own bounded thread pool, under its own
+     * {@code movies.export.timeout-millis} instead of the default async request timeout, so a big
+     * catalog or a slow client is not cut off halfway. An export that does run past that limit is
+     * stopped and the response aborted rather than ended as if it were complete.
+     *
+     * @param format {@code ndjson} (default) or {@code csv}
+     * @param response The response the export is written to
+     * @return The export task
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportCatalog(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        long timeoutMillis = movieProperties.getExport().getTimeoutMillis();
+        logger.info("Starting streaming catalog export as {}", exportFormat);
+        WebAsyncTask<Void> export = new WebAsyncTask<>(timeoutMillis, catalogExporter.getExecutor(), () -> {
+            response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"movies." + exportFormat.getFileExtension() + "\"");
+            try {
+                catalogExporter.export(exportFormat, response.getOutputStream());
+            } catch (InterruptedIOException e) {
+                // Cancelled on timeout; this can reach the dispatch before the timeout handler does
+                throw exportTimedOut(timeoutMillis);
+            }
+            return null;
+        });
+        export.onTimeout(() -> {
+            logger.warn("Catalog export as {} ran past {} ms, abandoning it", exportFormat, timeoutMillis);
+            throw exportTimedOut(timeoutMillis);
+        });
+        return export;
+    }
+
+    private static ExportTimeoutException exportTimedOut(long timeoutMillis) {
+        return new ExportTimeoutException("Arrr! Catalog export ran past " + timeoutMillis + " ms");
+    }
+
+    /**
+     * The top-rated movies of every genre token and every decade, materialized with the catalog.
+     *
+     * @return The leaderboards, best first, with the catalog version they belong to
+     */
+    @GetMapping("/leaderboards")
+    public Leaderboards getLeaderboards() {
+        return movieService.getLeaderboards();
+    }
+
+    /**
+     * The top-rated movies of one genre token, such as {@code Drama}; case is ignored.
+     *
+     * @param genre The genre token
+     * @return The best movies of the genre, or 404 if no movie has it
+     */
+    @GetMapping("/leaderboards/genre/{genre}")
+    public ResponseEntity<List<Movie>> getGenreLeaderboard(@PathVariable("genre") String genre) {
+        return leaderboard(movieService.getLeaderboards().forGenre(genre));
+    }
+
+    /**
+     * The top-rated movies of one decade, such as {@code 1990s}.
+     *
+     * @param decade The decade
+     * @return The best movies of the decade, or 404 if no movie is from it
+     */
+    @GetMapping("/leaderboards/decade/{decade}")
+    public ResponseEntity<List<Movie>> getDecadeLeaderboard(@PathVariable("decade") String decade) {
+        return leaderboard(movieService.getLeaderboards().forDecade(decade));
+    }
+
+    private static ResponseEntity<List<Movie>> leaderboard(List<Movie> movies) {
+        return movies.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(movies);
+    }
+
+    /**
+     * Streams catalog changes as server-sent events: a {@code catalog} event with the current version,
+     * then a {@code change} event with the movie IDs added, updated and removed on every reload.
+     * Event IDs are {@code epoch:version}, so a client that reconnects with {@code Last-Event-ID} (or
+     * {@code since}) gets the changes it missed, or a {@code reset} event when it has to refetch the catalog.
+     *
+     * @param lastEventId The last event ID the client saw, sent by {@code EventSource} on reconnect;
+     *                    takes precedence over {@code since}
+     * @param since The last event ID the client saw, for clients that cannot set headers
+     * @return The event stream, 503 when too many streams are open, or 404 when the stream be disabled
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCatalogChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "since", required = false) String since) {
+        if (!changeStream.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return changeStream.subscribe(lastEventId != null ? lastEventId : since)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(movieProperties.getChangeStream().getRetryAfterSeconds()))
+                .build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        logger.warn("Invalid API request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(ExportTimeoutException.class)
+    public ResponseEntity<Map<String, String>> handleExportTimeout(ExportTimeoutException e,
+                                                                   HttpServletResponse response) {
+        if (response.isCommitted()) {
+            // Part of the export is out already: let the container abort the connection, so the
+            // client sees a broken transfer instead of a file that merely looks complete
+            throw e;
+        }
+        response.reset();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleTaskRejected(TaskRejectedException e) {
+        logger.warn("Turning away a catalog export, all export threads be busy: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(Collections.singletonMap("error", "Too many catalog exports running, try again later"));
+    }
+
+    @ExceptionHandler(MovieNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleMovieNotFound(MovieNotFoundException e) {
+        logger.warn("Movie not found: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidSearchCriteriaException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidSearchCriteria(InvalidSearchCriteriaException e) {
+        logger.warn("Invalid batch request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+    }
+}
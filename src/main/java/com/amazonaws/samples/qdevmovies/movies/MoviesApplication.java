@@ -2,9 +2,11 @@ package com.amazonaws.samples.qdevmovies.movies;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 
 @SpringBootApplication
+@EnableConfigurationProperties(MovieProperties.class)
 public class MoviesApplication {
 
     public static void main(String[] args) {
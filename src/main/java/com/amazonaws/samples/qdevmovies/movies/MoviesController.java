@@ -1,14 +1,15 @@
 package com.amazonaws.samples.qdevmovies.movies;
 
-import com.amazonaws.samples.qdevmovies.utils.MovieIconUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,11 +23,34 @@ public class MoviesController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private MovieCardRenderer cardRenderer;
+
+    /**
+     * Shows the whole treasure chest, optionally sorted, with the top-rated leaderboards.
+     *
+     * @param sort Optional sort field: title, year, rating or duration
+     * @param direction Optional sort direction, asc or desc (defaults to the field's usual direction)
+     * @param model Spring model for passing data to the view
+     * @return The movies template
+     */
     @GetMapping("/movies")
-    public String getMovies(org.springframework.ui.Model model) {
+    public String getMovies(
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "direction", required = false) String direction,
+            org.springframework.ui.Model model) {
         logger.info("Fetching movies");
-        model.addAttribute("movies", movieService.getAllMovies());
+        MovieSort movieSort = MovieSort.CATALOG_ORDER;
+        try {
+            movieSort = MovieSort.fromParameters(sort, direction);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid sort requested: {}", e.getMessage());
+            model.addAttribute("searchError", e.getMessage());
+        }
+        addMovies(model, movieService.sortMovies(movieService.getAllMovies(), movieSort));
         model.addAttribute("genres", movieService.getAllGenreTreasures());
+        model.addAttribute("leaderboards", movieService.getLeaderboards());
+        addSortLinks(model, movieSort, null, null, null);
         return "movies";
     }
 
@@ -37,6 +61,8 @@ public class MoviesController {
      * @param name Optional movie name to search for (partial matches, arrr!)
      * @param id Optional specific movie ID to find
      * @param genre Optional genre to filter by
+     * @param sort Optional sort field: title, year, rating or duration
+     * @param direction Optional sort direction, asc or desc
      * @param model Spring model for passing data to the view
      * @return The movies template with search results
      */
@@ -45,17 +71,30 @@ public class MoviesController {
             @RequestParam(value = "name", required = false) String name,
             @RequestParam(value = "id", required = false) Long id,
             @RequestParam(value = "genre", required = false) String genre,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "direction", required = false) String direction,
             org.springframework.ui.Model model) {
         
         logger.info("Ahoy! Starting movie treasure hunt with name: '{}', id: '{}', genre: '{}'", 
                    name, id, genre);
         
+        MovieSort movieSort = MovieSort.CATALOG_ORDER;
         try {
+            if (!movieService.isValidSearchCriteria(name, id, genre)) {
+                throw new InvalidSearchCriteriaException();
+            }
+            try {
+                movieSort = MovieSort.fromParameters(sort, direction);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidSearchCriteriaException(e.getMessage());
+            }
+            
             // Search for movie treasures using specific exception handling!
-            List<Movie> searchResults = movieService.searchMovieTreasures(name, id, genre);
+            List<Movie> searchResults = movieService.sortMovies(
+                movieService.searchMovieTreasures(name, id, genre), movieSort);
             
             // Prepare the treasure chest for display
-            model.addAttribute("movies", searchResults);
+            addMovies(model, searchResults);
             model.addAttribute("genres", movieService.getAllGenreTreasures());
             model.addAttribute("searchName", name);
             model.addAttribute("searchId", id);
@@ -78,7 +117,7 @@ public class MoviesController {
             
         } catch (InvalidSearchCriteriaException e) {
             logger.warn("Invalid search criteria provided: {}", e.getMessage());
-            model.addAttribute("movies", movieService.getAllMovies());
+            addMovies(model, movieService.getAllMovies());
             model.addAttribute("genres", movieService.getAllGenreTreasures());
             model.addAttribute("searchError", e.getMessage());
             model.addAttribute("searchName", name);
@@ -86,7 +125,7 @@ public class MoviesController {
             model.addAttribute("searchGenre", genre);
         } catch (MovieDataLoadException e) {
             logger.error("Movie data loading error during search: {}", e.getMessage(), e);
-            model.addAttribute("movies", movieService.getAllMovies());
+            addMovies(model, movieService.getAllMovies());
             model.addAttribute("genres", movieService.getAllGenreTreasures());
             model.addAttribute("searchError", 
                 "Blimey! A scurvy bug with the movie data prevented the treasure hunt. Please try again, me hearty!");
@@ -95,7 +134,7 @@ public class MoviesController {
             model.addAttribute("searchGenre", genre);
         } catch (IllegalArgumentException e) {
             logger.error("Invalid argument during search: {}", e.getMessage(), e);
-            model.addAttribute("movies", movieService.getAllMovies());
+            addMovies(model, movieService.getAllMovies());
             model.addAttribute("genres", movieService.getAllGenreTreasures());
             model.addAttribute("searchError", 
                 "Arrr! Invalid search parameters provided, matey! Check yer input and try again.");
@@ -104,6 +143,7 @@ public class MoviesController {
             model.addAttribute("searchGenre", genre);
         }
         
+        addSortLinks(model, movieSort, name, id, genre);
         return "movies";
     }
 
@@ -121,9 +161,84 @@ public class MoviesController {
         
         Movie movie = movieOpt.get();
         model.addAttribute("movie", movie);
-        model.addAttribute("movieIcon", MovieIconUtils.getMovieIcon(movie.getMovieName()));
+        model.addAttribute("movieIcon", movie.getIcon());
         model.addAttribute("allReviews", reviewService.getReviewsForMovie(movie.getId()));
+        model.addAttribute("similarMovies", movieService.getSimilarMovies(movie.getId()));
         
         return "movie-details";
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the movies to show along with their pre-rendered cards for the movies grid and their facet counts.
+     */
+    private void addMovies(org.springframework.ui.Model model, List<Movie> movies) {
+        model.addAttribute("movies", movies);
+        try (RequestTrace.Span span = RequestTrace.span("MoviesController.cards")) {
+            model.addAttribute("movieCards", cardRenderer.renderCards(movies));
+        }
+        model.addAttribute("facets", movieService.getFacetCounts(movies));
+    }
+
+    /**
+     * Adds one link per sort order for the current page, keeping the search criteria. The active
+     * field's link shows its current direction and flips it when followed.
+     */
+    private void addSortLinks(org.springframework.ui.Model model, MovieSort current, String name, Long id, String genre) {
+        boolean searching = movieService.isValidSearchCriteria(name, id, genre);
+        UriComponentsBuilder base = UriComponentsBuilder.fromPath(searching ? "/movies/search" : "/movies");
+        if (searching) {
+            if (name != null && !name.trim().isEmpty()) {
+                base.queryParam("name", name);
+            }
+            if (id != null) {
+                base.queryParam("id", id);
+            }
+            if (genre != null && !genre.trim().isEmpty()) {
+                base.queryParam("genre", genre);
+            }
+        }
+
+        List<SortLink> links = new ArrayList<>();
+        links.add(new SortLink("Treasure Chest Order", base.cloneBuilder().build().encode().toUriString(),
+            current.isCatalogOrder()));
+        for (MovieSort.Field field : MovieSort.Field.values()) {
+            boolean active = field == current.getField();
+            boolean descending = active ? !current.isDescending() : field.isDescendingByDefault();
+            String url = base.cloneBuilder()
+                .queryParam("sort", field.getParameter())
+                .queryParam("direction", descending ? "desc" : "asc")
+                .build().encode().toUriString();
+            boolean shownDescending = active ? current.isDescending() : descending;
+            links.add(new SortLink(field.getLabel() + (shownDescending ? " ↓" : " ↑"), url, active));
+        }
+        model.addAttribute("sortLinks", links);
+        model.addAttribute("currentSort", current);
+    }
+
+    /**
+     * One entry of the sort bar above the movies grid.
+     */
+    public static final class SortLink {
+        private final String label;
+        private final String url;
+        private final boolean active;
+
+        SortLink(String label, String url, boolean active) {
+            this.label = label;
+            this.url = url;
+            this.active = active;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
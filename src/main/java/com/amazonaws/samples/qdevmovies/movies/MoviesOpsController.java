@@ -0,0 +1,142 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Internal monitoring endpoints for keeping an eye on the treasure chest, arrr!
+ * These return JSON and are meant for dashboards and operators, not for the movie pages.
+ */
+@RestController
+@RequestMapping("/internal")
+public class MoviesOpsController {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    private WarmupRunner warmupRunner;
+
+    @Autowired
+    private TracingFilter tracingFilter;
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    /**
+     * Readiness for load balancers: up once the catalog is loaded, its indexes are built and the
+     * warm-up traffic has finished.
+     *
+     * @return 200 with the warm-up summary when ready, otherwise 503 with the current state
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<WarmupRunner.Status> getReadiness() {
+        WarmupRunner.Status status = warmupRunner.status();
+        HttpStatus httpStatus = status.getState() == WarmupRunner.State.READY
+            ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(httpStatus).body(status);
+    }
+
+    /**
+     * Reloads the catalog from its configured location and starts serving it as a new version.
+     *
+     * @return the new catalog version and its number of movies
+     */
+    @PostMapping("/catalog/reload")
+    public Map<String, Object> reloadCatalog() {
+        MovieCatalog reloaded = movieService.reloadCatalog();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("catalogVersion", reloaded.getVersion());
+        result.put("movieCount", reloaded.size());
+        return result;
+    }
+
+    /**
+     * Runs a search and shows the plan the query planner chose for it, bypassing the result cache.
+     *
+     * @param name The movie name to search for
+     * @param id The specific movie ID to find
+     * @param genre The genre to filter by
+     * @return the steps in the order they ran, with estimated and actual rows and the time each took
+     */
+    @GetMapping("/search/explain")
+    public QueryPlan explainSearch(@RequestParam(value = "name", required = false) String name,
+                                   @RequestParam(value = "id", required = false) Long id,
+                                   @RequestParam(value = "genre", required = false) String genre) {
+        return movieService.explainSearch(name, id, genre);
+    }
+
+    /**
+     * The most recent requests that took longer than the slow threshold, with their parameters and
+     * the time spent in every traced stage.
+     *
+     * @return the slow request log, newest first, or 404 when tracing be disabled
+     */
+    @GetMapping("/slow-requests")
+    public ResponseEntity<SlowRequestLog.Snapshot> getSlowRequests() {
+        if (!tracingFilter.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(slowRequestLog.snapshot());
+    }
+
+    /**
+     * Hit, miss and eviction counters of the search result cache.
+     *
+     * @return the cache stats, or 404 when the search cache be disabled
+     */
+    @GetMapping("/search-cache/stats")
+    public ResponseEntity<SearchResultCache.Stats> getSearchCacheStats() {
+        return movieService.getSearchCacheStats()
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * How many searches ran and how many were saved by joining an identical search in flight.
+     *
+     * @return the coalescing stats, or 404 when coalescing be disabled
+     */
+    @GetMapping("/search-coalescing/stats")
+    public ResponseEntity<SingleFlight.Stats> getSearchCoalescingStats() {
+        return movieService.getSearchCoalescingStats()
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Hit and miss counters of the cache for descriptions read from disk.
+     *
+     * @return the cache stats, or 404 when descriptions stay on the heap
+     */
+    @GetMapping("/descriptions/stats")
+    public ResponseEntity<SearchResultCache.Stats> getDescriptionCacheStats() {
+        return movieService.getDescriptionCacheStats()
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The adaptive concurrency limit of each endpoint class, with how many requests it admitted and shed.
+     *
+     * @return the admission stats, or 404 when admission control be disabled
+     */
+    @GetMapping("/admission/stats")
+    public ResponseEntity<Map<EndpointClass, AdaptiveConcurrencyLimit.Stats>> getAdmissionStats() {
+        return admissionControlFilter.getStats()
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,134 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How a treasure hunt was carried out, arrr!
+ * The steps run in order: the first finds the candidate movies and each later one narrows them down.
+ * Every step reports the rows the planner expected, the rows it looked at, the rows it kept, and the
+ * time it took.
+ */
+public class QueryPlan {
+    private final String name;
+    private final Long id;
+    private final String genre;
+    private final long catalogVersion;
+    private final int catalogSize;
+    private final List<Step> steps;
+    private final int resultCount;
+    private final long elapsedNanos;
+
+    QueryPlan(SearchCriteria criteria, long catalogVersion, int catalogSize, List<Step> steps,
+              int resultCount, long elapsedNanos) {
+        this.name = criteria.getName();
+        this.id = criteria.getId();
+        this.genre = criteria.getGenre();
+        this.catalogVersion = catalogVersion;
+        this.catalogSize = catalogSize;
+        this.steps = Collections.unmodifiableList(steps);
+        this.resultCount = resultCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * How a step reaches its rows.
+     */
+    public enum Access {
+        /** Looks the ID up in the catalog's ID map. */
+        ID_LOOKUP,
+        /** Intersects the trigram posting lists of the value, then checks each candidate. */
+        TRIGRAM_INDEX,
+        /** Checks every movie in the catalog, for values too short to look up in an index. */
+        FULL_SCAN,
+        /** Checks the rows kept by the previous steps. */
+        FILTER
+    }
+
+    /**
+     * One predicate of the plan and what it cost.
+     */
+    public static class Step {
+        private final String predicate;
+        private final String value;
+        private final Access access;
+        private final int estimatedRows;
+        private final int examinedRows;
+        private final int actualRows;
+        private final long elapsedNanos;
+
+        Step(String predicate, String value, Access access, int estimatedRows, int examinedRows,
+             int actualRows, long elapsedNanos) {
+            this.predicate = predicate;
+            this.value = value;
+            this.access = access;
+            this.estimatedRows = estimatedRows;
+            this.examinedRows = examinedRows;
+            this.actualRows = actualRows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getPredicate() {
+            return predicate;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public Access getAccess() {
+            return access;
+        }
+
+        /**
+         * @return how many movies the planner expected this predicate to match in the whole catalog
+         */
+        public int getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        public int getExaminedRows() {
+            return examinedRows;
+        }
+
+        public int getActualRows() {
+            return actualRows;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A small cost-based planner for treasure hunts, arrr!
+ * <p>
+ * Each predicate of a search gets a cardinality estimate from the catalog's statistics. An ID matches
+ * at most one movie. A name or genre matches at most as many movies as the posting list of its
+ * rarest trigram holds. A value too short for the trigram index could match the whole catalog. The
+ * most selective predicate runs first, through its index where it has one. The others then filter
+ * the rows it kept, so each later step only looks at the intersection so far. Results come back in
+ * catalog order, the same as a plain scan.
+ */
+final class QueryPlanner {
+    private final List<Movie> movies;
+    private final Map<Long, Integer> ordinals;
+    private final String[] lowerNames;
+    private final String[] lowerGenres;
+    private final TrigramIndex nameIndex;
+    private final TrigramIndex genreIndex;
+
+    QueryPlanner(List<Movie> movies, Map<Long, Integer> ordinals) {
+        this.movies = movies;
+        this.ordinals = ordinals;
+        this.lowerNames = new String[movies.size()];
+        this.lowerGenres = new String[movies.size()];
+        for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+            lowerNames[ordinal] = movies.get(ordinal).getMovieName().toLowerCase(Locale.ROOT);
+            lowerGenres[ordinal] = movies.get(ordinal).getGenre().toLowerCase(Locale.ROOT);
+        }
+        this.nameIndex = new TrigramIndex(Arrays.asList(lowerNames));
+        this.genreIndex = new TrigramIndex(Arrays.asList(lowerGenres));
+    }
+
+    /**
+     * Finds the movies matching the criteria, in catalog order.
+     */
+    List<Movie> search(SearchCriteria criteria) {
+        return toMovies(execute(plan(criteria), null));
+    }
+
+    /**
+     * Runs the search and reports the plan it followed, with the estimated and actual rows and the
+     * time spent in every step.
+     */
+    QueryPlan explain(SearchCriteria criteria, long catalogVersion) {
+        long start = System.nanoTime();
+        List<QueryPlan.Step> trace = new ArrayList<>();
+        int[] rows = execute(plan(criteria), trace);
+        return new QueryPlan(criteria, catalogVersion, movies.size(), trace, rows.length, System.nanoTime() - start);
+    }
+
+    /**
+     * Orders the predicates by estimated cardinality, fewest rows first. Ties keep the name ahead
+     * of the genre.
+     */
+    private List<Predicate> plan(SearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>(2);
+        if (criteria.getId() != null) {
+            predicates.add(new Predicate(Field.ID, String.valueOf(criteria.getId()), 1, QueryPlan.Access.ID_LOOKUP));
+            return predicates;
+        }
+        if (criteria.getName() != null) {
+            predicates.add(textPredicate(Field.NAME, criteria.getName(), nameIndex));
+        }
+        if (criteria.getGenre() != null) {
+            predicates.add(textPredicate(Field.GENRE, criteria.getGenre(), genreIndex));
+        }
+        predicates.sort(Comparator.comparingInt(predicate -> predicate.estimatedRows));
+        return predicates;
+    }
+
+    private Predicate textPredicate(Field field, String value, TrigramIndex index) {
+        int estimate = index.estimate(value);
+        return estimate < 0
+            ? new Predicate(field, value, movies.size(), QueryPlan.Access.FULL_SCAN)
+            : new Predicate(field, value, estimate, QueryPlan.Access.TRIGRAM_INDEX);
+    }
+
+    /**
+     * Runs the plan, recording a step for each predicate when given a trace.
+     *
+     * @return the matching ordinals, ascending
+     */
+    private int[] execute(List<Predicate> plan, List<QueryPlan.Step> trace) {
+        if (plan.isEmpty()) {
+            return allOrdinals();
+        }
+        int[] rows = null;
+        for (Predicate predicate : plan) {
+            long start = trace == null ? 0L : System.nanoTime();
+            QueryPlan.Access access = rows == null ? predicate.access : QueryPlan.Access.FILTER;
+            int[] examined;
+            switch (access) {
+                case ID_LOOKUP:
+                    Integer ordinal = ordinals.get(Long.parseLong(predicate.value));
+                    examined = ordinal == null ? new int[0] : new int[] {ordinal};
+                    break;
+                case TRIGRAM_INDEX:
+                    examined = (predicate.field == Field.NAME ? nameIndex : genreIndex).candidates(predicate.value);
+                    break;
+                case FULL_SCAN:
+                    examined = allOrdinals();
+                    break;
+                default:
+                    examined = rows;
+                    break;
+            }
+            rows = predicate.field == Field.ID ? examined : keepMatching(examined, predicate);
+            if (trace != null) {
+                trace.add(new QueryPlan.Step(predicate.field.label, predicate.value, access, predicate.estimatedRows,
+                    examined.length, rows.length, System.nanoTime() - start));
+            }
+        }
+        return rows;
+    }
+
+    private int[] keepMatching(int[] candidates, Predicate predicate) {
+        String[] values = predicate.field == Field.NAME ? lowerNames : lowerGenres;
+        int[] kept = new int[candidates.length];
+        int count = 0;
+        for (int ordinal : candidates) {
+            if (values[ordinal].contains(predicate.value)) {
+                kept[count++] = ordinal;
+            }
+        }
+        return count == kept.length ? kept : Arrays.copyOf(kept, count);
+    }
+
+    private int[] allOrdinals() {
+        int[] all = new int[movies.size()];
+        for (int ordinal = 0; ordinal < all.length; ordinal++) {
+            all[ordinal] = ordinal;
+        }
+        return all;
+    }
+
+    private List<Movie> toMovies(int[] rows) {
+        if (rows.length == movies.size()) {
+            return movies;
+        }
+        List<Movie> found = new ArrayList<>(rows.length);
+        for (int ordinal : rows) {
+            found.add(movies.get(ordinal));
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    private enum Field {
+        ID("id"), NAME("name"), GENRE("genre");
+
+        private final String label;
+
+        Field(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Predicate {
+        private final Field field;
+        private final String value;
+        private final int estimatedRows;
+        private final QueryPlan.Access access;
+
+        private Predicate(Field field, String value, int estimatedRows, QueryPlan.Access access) {
+            this.field = field;
+            this.value = value;
+            this.estimatedRows = estimatedRows;
+            this.access = access;
+        }
+    }
+}
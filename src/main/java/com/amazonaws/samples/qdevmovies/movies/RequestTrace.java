@@ -0,0 +1,143 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lightweight timing spans for the request on the current thread, arrr!
+ * <p>
+ * {@link TracingFilter} starts a trace for each request. Code on the hot path wraps its stages in
+ * {@code try (RequestTrace.Span span = RequestTrace.span("MovieService.search")) { ... }}, and each
+ * closed span becomes a {@link Stage} with its nesting depth, its offset from the start of the
+ * request and its duration. Without a trace on the thread, for example on a shard scatter thread,
+ * in a unit test or with tracing disabled, {@link #span(String)} returns a shared no-op span, so the
+ * cost is one thread-local read. A trace keeps at most {@link #MAX_STAGES} stages and counts the rest
+ * as dropped, so a long batch cannot grow it without bound.
+ */
+public final class RequestTrace {
+    static final int MAX_STAGES = 128;
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final Span NO_OP = () -> { };
+
+    private final long startNanos = System.nanoTime();
+    private final List<Stage> stages = new ArrayList<>();
+    private int depth;
+    private int droppedStages;
+
+    private RequestTrace() {
+    }
+
+    /**
+     * Starts a new trace on the current thread, replacing any trace left behind.
+     */
+    static RequestTrace start() {
+        RequestTrace trace = new RequestTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Opens a span on the current thread's trace.
+     *
+     * @param name The stage name, by convention {@code Class.stage}
+     * @return the span to close when the stage ends
+     */
+    public static Span span(String name) {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? NO_OP : trace.open(name);
+    }
+
+    private Span open(String name) {
+        if (stages.size() >= MAX_STAGES) {
+            droppedStages++;
+            return NO_OP;
+        }
+        long opened = System.nanoTime();
+        Stage stage = new Stage(name, depth, opened - startNanos);
+        stages.add(stage);
+        depth++;
+        return new Span() {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    stage.elapsedNanos = System.nanoTime() - opened;
+                    depth--;
+                }
+            }
+        };
+    }
+
+    /**
+     * Ends the trace and removes it from the current thread.
+     *
+     * @return how long the request took since the trace started
+     */
+    long finish() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return the stages in the order they were opened
+     */
+    List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    int getDroppedStages() {
+        return droppedStages;
+    }
+
+    /**
+     * A stage of the request being timed. Closing it twice has no further effect.
+     */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * A timed stage of a request. Stages left open when the trace finished report an elapsed time of -1.
+     */
+    public static final class Stage {
+        private final String name;
+        private final int depth;
+        private final long startNanos;
+        private long elapsedNanos = -1;
+
+        private Stage(String name, int depth, long startNanos) {
+            this.name = name;
+            this.depth = depth;
+            this.startNanos = startNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return how many spans were open around this one, 0 for a top-level stage
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return when the stage started, relative to the start of the request
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
@@ -12,6 +12,8 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
 
 @Service
@@ -20,8 +22,8 @@ public class ReviewService {
 
     public List<Review> getReviewsForMovie(long movieId) {
         List<Review> reviews = new ArrayList<>();
-        try {
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream("mock-reviews.json");
+        try (RequestTrace.Span span = RequestTrace.span("ReviewService.reviews");
+             InputStream inputStream = getClass().getClassLoader().getResourceAsStream("mock-reviews.json")) {
             if (inputStream == null) {
                 logger.warn("Arrr! Review treasure chest file 'mock-reviews.json' not found for movie {}", movieId);
                 return reviews; // Return empty list instead of throwing exception
@@ -56,4 +58,48 @@ public class ReviewService {
         }
         return reviews;
     }
+
+    /**
+     * Aggregates the reviews of every movie in one read of the review chest, arrr!
+     * Meant for bulk consumers such as the catalog export, which would otherwise re-read the
+     * reviews once per movie.
+     *
+     * @return Review count and average rating per movie ID; movies without reviews are absent
+     */
+    public Map<Long, ReviewSummary> getReviewSummaries() {
+        Map<Long, ReviewSummary> summaries = new HashMap<>();
+        try (RequestTrace.Span span = RequestTrace.span("ReviewService.summaries");
+             InputStream inputStream = getClass().getClassLoader().getResourceAsStream("mock-reviews.json")) {
+            if (inputStream == null) {
+                logger.warn("Arrr! Review treasure chest file 'mock-reviews.json' not found for review summaries");
+                return summaries;
+            }
+            
+            Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name());
+            String jsonContent = scanner.useDelimiter("\\A").next();
+            scanner.close();
+            
+            JSONObject reviewsData = new JSONObject(jsonContent);
+            for (String movieId : reviewsData.keySet()) {
+                JSONArray movieReviews = reviewsData.getJSONArray(movieId);
+                double totalRating = 0;
+                for (int i = 0; i < movieReviews.length(); i++) {
+                    totalRating += movieReviews.getJSONObject(i).getDouble("rating");
+                }
+                int reviewCount = movieReviews.length();
+                summaries.put(Long.valueOf(movieId),
+                    new ReviewSummary(reviewCount, reviewCount == 0 ? 0.0 : totalRating / reviewCount));
+            }
+        } catch (JSONException | NumberFormatException e) {
+            logger.error("Scurvy bug in JSON parsing for review summaries: {}", e.getMessage(), e);
+            // Return what we have for non-critical operation
+        } catch (IOException e) {
+            logger.error("IO error loading review summaries: {}", e.getMessage(), e);
+            // Return what we have for non-critical operation
+        } catch (IllegalStateException e) {
+            logger.error("Scanner state error loading review summaries: {}", e.getMessage(), e);
+            // Return what we have for non-critical operation
+        }
+        return summaries;
+    }
 }
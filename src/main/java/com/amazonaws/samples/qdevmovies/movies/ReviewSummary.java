@@ -0,0 +1,24 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * Aggregate of the customer reviews for one movie: how many there be and their average rating.
+ */
+public class ReviewSummary {
+    public static final ReviewSummary EMPTY = new ReviewSummary(0, 0.0);
+
+    private final int reviewCount;
+    private final double averageRating;
+
+    public ReviewSummary(int reviewCount, double averageRating) {
+        this.reviewCount = reviewCount;
+        this.averageRating = averageRating;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+}
@@ -0,0 +1,97 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Normalized search criteria for a treasure hunt, arrr!
+ * Names and genres are trimmed and lowercased, blank values become {@code null}, and a valid ID
+ * overrides the other criteria, so two searches that would return the same movies compare equal.
+ */
+public final class SearchCriteria {
+    private final Long id;
+    private final String name;
+    private final String genre;
+
+    private SearchCriteria(Long id, String name, String genre) {
+        this.id = id;
+        this.name = name;
+        this.genre = genre;
+    }
+
+    public static SearchCriteria of(String name, Long id, String genre) {
+        if (id != null && id > 0) {
+            return new SearchCriteria(id, null, null);
+        }
+        return new SearchCriteria(null, normalize(name), normalize(genre));
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public boolean isEmpty() {
+        return id == null && name == null && genre == null;
+    }
+
+    /**
+     * Checks a single movie against these criteria, using the same partial, case-insensitive
+     * matching as the search page.
+     */
+    public boolean matches(Movie movie) {
+        if (id != null) {
+            return movie.getId() == id;
+        }
+        return matchesLowerCase(movie.getMovieName().toLowerCase(Locale.ROOT),
+            movie.getGenre().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Name and genre matching against values the caller has already lowercased, so a pass that
+     * checks many criteria against one movie only lowercases it once. Ignores the ID.
+     */
+    boolean matchesLowerCase(String lowerMovieName, String lowerGenre) {
+        if (name != null && !lowerMovieName.contains(name)) {
+            return false;
+        }
+        return genre == null || lowerGenre.contains(genre);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchCriteria)) {
+            return false;
+        }
+        SearchCriteria that = (SearchCriteria) o;
+        return Objects.equals(id, that.id) && Objects.equals(name, that.name) && Objects.equals(genre, that.genre);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, genre);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCriteria{id=" + id + ", name='" + name + "', genre='" + genre + "'}";
+    }
+}
@@ -0,0 +1,382 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A bounded cache for search results with W-TinyLFU style eviction, arrr!
+ * <p>
+ * New entries land in a small LRU admission window. When the window overflows, its oldest entry
+ * only makes it into the main (segmented LRU) area if a frequency sketch says it is requested more
+ * often than the entries it would push out, so a burst of one-off searches cannot flush the popular
+ * ones. The cache is bounded by total weight, which is either one per entry or an estimated size in
+ * bytes depending on the weigher it was built with.
+ * <p>
+ * Lookups take no lock: they read a concurrent map and note the key in a small per-thread-stripe
+ * buffer. The eviction policy replays those notes under its lock on the next write, or when a buffer
+ * fills up and the lock happens to be free. Notes that find their buffer full are dropped, which only
+ * makes the frequency and recency estimates a little coarser.
+ */
+public class SearchResultCache<K, V> {
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    private static final int READ_BUFFER_STRIPES =
+        Integer.highestOneBit(Math.min(64, 4 * Runtime.getRuntime().availableProcessors()));
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private final ToLongBiFunction<K, V> weigher;
+
+    private final ConcurrentHashMap<K, Node<V>> data = new ConcurrentHashMap<>();
+    private final ReadBuffer<K>[] readBuffers;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // The eviction policy below is only touched while holding the eviction lock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Consumer<K> onAccess = this::onAccess;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private long evictions;
+    private long rejections;
+
+    @SuppressWarnings("unchecked")
+    SearchResultCache(long maximumWeight, long expectedEntries, ToLongBiFunction<K, V> weigher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Cache maximum weight must be positive, matey!");
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+        this.mainMaximum = Math.max(0, maximumWeight - windowMaximum);
+        this.protectedMaximum = mainMaximum * PROTECTED_PERCENT / 100;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    /**
+     * Builds a cache holding at most {@code maximumEntries} results.
+     */
+    public static <K, V> SearchResultCache<K, V> ofMaximumEntries(long maximumEntries) {
+        return new SearchResultCache<>(maximumEntries, maximumEntries, (key, value) -> 1L);
+    }
+
+    /**
+     * Builds a cache whose results add up to at most {@code maximumBytes}, as estimated by the weigher.
+     */
+    public static <K, V> SearchResultCache<K, V> ofMaximumBytes(long maximumBytes, long averageEntryBytes,
+                                                                ToLongBiFunction<K, V> weigher) {
+        return new SearchResultCache<>(maximumBytes, maximumBytes / Math.max(1, averageEntryBytes), weigher);
+    }
+
+    /**
+     * Looks up a cached result, recording the access for both the hit-rate stats and the
+     * frequency sketch used by admission. Never blocks.
+     *
+     * @return the cached value, or {@code null} on a miss
+     */
+    public V getIfPresent(K key) {
+        return getIfPresent(key, true);
+    }
+
+    /**
+     * Looks up a cached result, recording the access for the frequency sketch used by admission.
+     * Never blocks.
+     *
+     * @param countStats whether the lookup counts towards the hit-rate stats
+     * @return the cached value, or {@code null} on a miss
+     */
+    public V getIfPresent(K key, boolean countStats) {
+        Node<V> node = data.get(key);
+        ReadBuffer<K> buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (!buffer.offer(key) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        if (countStats) {
+            (node == null ? misses : hits).increment();
+        }
+        return node == null ? null : node.value;
+    }
+
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(key, value);
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            if (weight > maximumWeight) {
+                rejections++;
+                return;
+            }
+            removeNode(key);
+            Node<V> node = new Node<>(value, weight);
+            window.put(key, node);
+            windowWeight += weight;
+            data.put(key, node);
+            while (windowWeight > windowMaximum && !window.isEmpty()) {
+                Map.Entry<K, Node<V>> eldest = removeEldest(window);
+                windowWeight -= eldest.getValue().weight;
+                admit(eldest.getKey(), eldest.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+            windowWeight = 0;
+            probationWeight = 0;
+            protectedWeight = 0;
+            sketch.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        evictionLock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), evictions, rejections,
+                window.size() + probation.size() + protectedSegment.size(),
+                windowWeight + probationWeight + protectedWeight, maximumWeight);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainReadBuffers() {
+        for (ReadBuffer<K> buffer : readBuffers) {
+            buffer.drainTo(onAccess);
+        }
+    }
+
+    /**
+     * Replays a recorded lookup: counts it in the sketch and refreshes the entry's recency, promoting
+     * it to the protected segment on its second hit in the main area.
+     */
+    private void onAccess(K key) {
+        sketch.increment(key);
+        if (window.get(key) != null || protectedSegment.get(key) != null) {
+            return;
+        }
+        Node<V> node = probation.remove(key);
+        if (node != null) {
+            probationWeight -= node.weight;
+            protectedSegment.put(key, node);
+            protectedWeight += node.weight;
+            demoteProtectedOverflow();
+        }
+    }
+
+    /**
+     * Moves an entry evicted from the window into probation, if it is worth more than every one of
+     * the main-area entries it would displace. The victims are picked before any is evicted, so a
+     * refused candidate leaves the main area as it was.
+     */
+    private void admit(K candidateKey, Node<V> candidate) {
+        if (candidate.weight > mainMaximum) {
+            reject(candidateKey, candidate);
+            return;
+        }
+        int candidateFrequency = sketch.frequency(candidateKey);
+        long excess = probationWeight + protectedWeight + candidate.weight - mainMaximum;
+        List<K> victims = new ArrayList<>();
+        for (LinkedHashMap<K, Node<V>> segment : Arrays.asList(probation, protectedSegment)) {
+            Iterator<Map.Entry<K, Node<V>>> eldestFirst = segment.entrySet().iterator();
+            while (excess > 0 && eldestFirst.hasNext()) {
+                Map.Entry<K, Node<V>> victim = eldestFirst.next();
+                if (candidateFrequency <= sketch.frequency(victim.getKey())) {
+                    reject(candidateKey, candidate);
+                    return;
+                }
+                victims.add(victim.getKey());
+                excess -= victim.getValue().weight;
+            }
+        }
+        for (K victim : victims) {
+            removeNode(victim);
+            evictions++;
+        }
+        probation.put(candidateKey, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    private void reject(K candidateKey, Node<V> candidate) {
+        data.remove(candidateKey, candidate);
+        evictions++;
+        rejections++;
+    }
+
+    private void demoteProtectedOverflow() {
+        while (protectedWeight > protectedMaximum && !protectedSegment.isEmpty()) {
+            Map.Entry<K, Node<V>> eldest = removeEldest(protectedSegment);
+            protectedWeight -= eldest.getValue().weight;
+            probation.put(eldest.getKey(), eldest.getValue());
+            probationWeight += eldest.getValue().weight;
+        }
+    }
+
+    private void removeNode(K key) {
+        data.remove(key);
+        Node<V> node = window.remove(key);
+        if (node != null) {
+            windowWeight -= node.weight;
+            return;
+        }
+        node = probation.remove(key);
+        if (node != null) {
+            probationWeight -= node.weight;
+            return;
+        }
+        node = protectedSegment.remove(key);
+        if (node != null) {
+            protectedWeight -= node.weight;
+        }
+    }
+
+    private static <K, V> Map.Entry<K, Node<V>> removeEldest(LinkedHashMap<K, Node<V>> segment) {
+        Iterator<Map.Entry<K, Node<V>>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, Node<V>> eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    /**
+     * A lossy ring of recently looked-up keys, filled without locking and drained under the eviction lock.
+     */
+    private static final class ReadBuffer<K> {
+        private static final int SIZE = 16;
+
+        private final AtomicReferenceArray<K> slots = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong writes = new AtomicLong();
+        private volatile long reads;
+
+        /**
+         * @return {@code false} when the buffer is full and should be drained
+         */
+        private boolean offer(K key) {
+            long tail = writes.get();
+            if (tail - reads >= SIZE) {
+                return false;
+            }
+            if (writes.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & (SIZE - 1)), key);
+            }
+            return true;
+        }
+
+        private void drainTo(Consumer<K> consumer) {
+            long head = reads;
+            long tail = writes.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & (SIZE - 1));
+                K key = slots.get(index);
+                if (key == null) {
+                    // Claimed but not written yet; picked up on the next drain
+                    break;
+                }
+                slots.lazySet(index, null);
+                consumer.accept(key);
+            }
+            reads = head;
+        }
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private final long weight;
+
+        private Node(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A point-in-time view of the cache counters, ready to be served on the monitoring endpoint.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long rejectedAdmissions;
+        private final long size;
+        private final long weight;
+        private final long maximumWeight;
+
+        Stats(long hits, long misses, long evictions, long rejectedAdmissions, long size, long weight,
+              long maximumWeight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.rejectedAdmissions = rejectedAdmissions;
+            this.size = size;
+            this.weight = weight;
+            this.maximumWeight = maximumWeight;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getRejectedAdmissions() {
+            return rejectedAdmissions;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+}
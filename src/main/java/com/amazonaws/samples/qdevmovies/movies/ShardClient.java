@@ -0,0 +1,29 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Talks to the other shards of a partitioned catalog. Every call only sees the movies owned by
+ * the target shard; merging is the caller's job.
+ */
+public interface ShardClient {
+
+    Optional<Movie> getMovie(int shard, long id);
+
+    List<Movie> search(int shard, SearchCriteria criteria);
+
+    /**
+     * Runs a whole batch of searches on the target shard in one call.
+     *
+     * @return One result list per search, in the same order as the criteria
+     */
+    List<List<Movie>> searchBatch(int shard, List<SearchCriteria> criteriaList);
+
+    /**
+     * Gets the movies most similar to one the target shard owns, drawn from that shard's movies.
+     */
+    List<Movie> getSimilarMovies(int shard, long id);
+
+    List<Movie> getAllMovies(int shard);
+}
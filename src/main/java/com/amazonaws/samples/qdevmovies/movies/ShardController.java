@@ -0,0 +1,65 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shard-to-shard endpoints, matey. They only ever answer from this instance's own partition of
+ * the catalog; the instance that received the user request does the routing and merging.
+ */
+@RestController
+@RequestMapping("/internal/shard")
+public class ShardController {
+    private static final Logger logger = LogManager.getLogger(ShardController.class);
+
+    @Autowired
+    private MovieService movieService;
+
+    @GetMapping("/movies")
+    public List<Movie> getLocalMovies() {
+        return movieService.getLocalMovies();
+    }
+
+    @GetMapping("/movies/{id}")
+    public ResponseEntity<Movie> getLocalMovie(@PathVariable("id") long movieId) {
+        return movieService.getLocalMovieById(movieId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/movies/{id}/similar")
+    public List<Movie> getLocalSimilarMovies(@PathVariable("id") long movieId) {
+        return movieService.getLocalSimilarMovies(movieId);
+    }
+
+    @GetMapping("/search")
+    public List<Movie> searchLocalMovies(
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "id", required = false) Long id,
+            @RequestParam(value = "genre", required = false) String genre) {
+        logger.debug("Shard search with name: '{}', id: '{}', genre: '{}'", name, id, genre);
+        return movieService.searchLocalMovieTreasures(SearchCriteria.of(name, id, genre));
+    }
+
+    @PostMapping("/batch-search")
+    public List<List<Movie>> searchLocalMoviesBatch(@RequestBody List<MovieSearchRequest> requests) {
+        logger.debug("Shard batch of {} searches", requests.size());
+        List<SearchCriteria> criteriaList = new ArrayList<>(requests.size());
+        for (MovieSearchRequest request : requests) {
+            criteriaList.add(request.toCriteria());
+        }
+        return movieService.searchLocalMovieTreasuresBatch(criteriaList);
+    }
+}
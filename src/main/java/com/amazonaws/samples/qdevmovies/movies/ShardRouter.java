@@ -0,0 +1,237 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Routes requests across a hash-partitioned catalog, arrr!
+ * <p>
+ * Every movie belongs to exactly one shard, picked by hashing its ID. Point lookups go straight to
+ * the owning shard; searches are scattered to all shards in parallel and the answers gathered and
+ * merged in ID order; a batch of searches is scattered once, as a single call per shard. Each remote
+ * shard gets its own timeout, and a shard that is slow or down leaves the result marked incomplete
+ * rather than failing the whole request.
+ */
+class ShardRouter {
+    private static final Logger logger = LogManager.getLogger(ShardRouter.class);
+    private static final Comparator<Movie> BY_ID = Comparator.comparingLong(Movie::getId);
+
+    private final int shardIndex;
+    private final int shardCount;
+    private final long timeoutMillis;
+    private final ShardClient client;
+    private final ExecutorService executor;
+
+    ShardRouter(int shardIndex, int shardCount, long timeoutMillis, ShardClient client) {
+        if (shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(String.format(
+                "Arrr! Shard index %d is not valid for %d shards, matey!", shardIndex, shardCount));
+        }
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.timeoutMillis = timeoutMillis;
+        this.client = client;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shard-gather-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Picks the shard owning a movie ID.
+     */
+    static int shardOf(long id, int shardCount) {
+        int hash = Long.hashCode(id) * 0x9e3779b9;
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    boolean isLocal(long id) {
+        return shardOf(id, shardCount) == shardIndex;
+    }
+
+    int getShardIndex() {
+        return shardIndex;
+    }
+
+    int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Looks a movie up on the remote shard that owns it.
+     */
+    Optional<Movie> fetchRemote(long id) {
+        return askOwner(id, "looking up", owner -> client.getMovie(owner, id), Optional.empty());
+    }
+
+    /**
+     * Gets the movies similar to one owned by a remote shard, as that shard precomputed them.
+     */
+    List<Movie> fetchRemoteSimilar(long id) {
+        return askOwner(id, "finding movies similar to", owner -> client.getSimilarMovies(owner, id),
+            Collections.emptyList());
+    }
+
+    /**
+     * Asks the remote shard owning a movie, giving up with the fallback when it is slow or down.
+     */
+    private <T> T askOwner(long id, String action, IntFunction<T> call, T fallback) {
+        int owner = shardOf(id, shardCount);
+        Future<T> lookup = executor.submit(() -> call.apply(owner));
+        try {
+            return lookup.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            lookup.cancel(true);
+            logger.warn("Shard {} timed out {} movie {}", owner, action, id);
+        } catch (ExecutionException e) {
+            logger.warn("Shard {} failed {} movie {}: {}", owner, action, id, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return fallback;
+    }
+
+    /**
+     * Gathers every movie of every shard.
+     *
+     * @param localCall The movies of the local shard
+     */
+    Gathered allMovies(Supplier<List<Movie>> localCall) {
+        return scatterGather(client::getAllMovies, localCall);
+    }
+
+    /**
+     * Runs a name/genre search on every shard.
+     *
+     * @param localCall The same search answered from the local catalog
+     */
+    Gathered search(SearchCriteria criteria, Supplier<List<Movie>> localCall) {
+        return scatterGather(shard -> client.search(shard, criteria), localCall);
+    }
+
+    /**
+     * Runs a whole batch of searches with one call per shard, all shards in parallel.
+     *
+     * @param localCall The same searches answered from the local catalog, one result list per search
+     * @return One merged answer per search, in the same order as the criteria
+     */
+    List<Gathered> searchBatch(List<SearchCriteria> criteriaList, Supplier<List<List<Movie>>> localCall) {
+        List<List<Movie>> merged = new ArrayList<>(criteriaList.size());
+        for (int i = 0; i < criteriaList.size(); i++) {
+            merged.add(new ArrayList<>());
+        }
+        IntFunction<List<List<Movie>>> remoteCall = shard -> {
+            List<List<Movie>> answers = client.searchBatch(shard, criteriaList);
+            if (answers.size() != criteriaList.size()) {
+                throw new IllegalStateException(String.format(
+                    "answered %d of %d searches", answers.size(), criteriaList.size()));
+            }
+            return answers;
+        };
+        boolean complete = gather(remoteCall, localCall, answers -> {
+            for (int i = 0; i < answers.size(); i++) {
+                merged.get(i).addAll(answers.get(i));
+            }
+        });
+
+        List<Gathered> results = new ArrayList<>(merged.size());
+        for (List<Movie> movies : merged) {
+            movies.sort(BY_ID);
+            results.add(new Gathered(movies, complete));
+        }
+        return results;
+    }
+
+    /**
+     * Runs a query on every shard in parallel (the local one on the calling thread) and merges the
+     * answers in ID order.
+     */
+    private Gathered scatterGather(IntFunction<List<Movie>> remoteCall, Supplier<List<Movie>> localCall) {
+        List<Movie> merged = new ArrayList<>();
+        boolean complete = gather(remoteCall, localCall, merged::addAll);
+        merged.sort(BY_ID);
+        return new Gathered(merged, complete);
+    }
+
+    /**
+     * Runs a call on every shard in parallel, the local one on the calling thread, and hands each
+     * answer that arrives in time to the merge step, on the calling thread too.
+     *
+     * @return whether every shard answered in time
+     */
+    private <T> boolean gather(IntFunction<T> remoteCall, Supplier<T> localCall, Consumer<T> merge) {
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(shard == shardIndex ? null : executor.submit(() -> remoteCall.apply(target)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        merge.accept(localCall.get());
+        boolean complete = true;
+        for (int shard = 0; shard < shardCount; shard++) {
+            Future<T> future = futures.get(shard);
+            if (future == null) {
+                continue;
+            }
+            try {
+                merge.accept(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                complete = false;
+                logger.warn("Shard {} timed out after {} ms, returning partial treasures", shard, timeoutMillis);
+            } catch (ExecutionException e) {
+                complete = false;
+                logger.warn("Shard {} failed: {}, returning partial treasures", shard, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete = false;
+                break;
+            }
+        }
+        return complete;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Merged answer of a scatter-gather, and whether every shard answered in time.
+     */
+    static final class Gathered {
+        private final List<Movie> movies;
+        private final boolean complete;
+
+        Gathered(List<Movie> movies, boolean complete) {
+            this.movies = movies;
+            this.complete = complete;
+        }
+
+        List<Movie> getMovies() {
+            return movies;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+    }
+}
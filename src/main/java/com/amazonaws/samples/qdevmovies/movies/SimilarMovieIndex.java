@@ -0,0 +1,186 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Precomputed "similar movies" neighbor lists, arrr!
+ * <p>
+ * Movies are scored pairwise on shared genre tokens, director, era and rating. The top-K neighbors
+ * of every movie are computed once when the catalog is built, in parallel across all cores with
+ * fork-join, and stored as arrays of catalog ordinals so serving them is a constant-time array read.
+ */
+final class SimilarMovieIndex {
+    static final int DEFAULT_TOP_K = 4;
+
+    private static final double GENRE_WEIGHT = 0.5;
+    private static final double DIRECTOR_WEIGHT = 0.2;
+    private static final double ERA_WEIGHT = 0.15;
+    private static final double RATING_WEIGHT = 0.15;
+    private static final double ERA_SPAN_YEARS = 30.0;
+    private static final double RATING_SPAN = 5.0;
+    private static final int SEQUENTIAL_THRESHOLD = 32;
+    private static final int[] NO_NEIGHBORS = new int[0];
+
+    private final int[][] neighbors;
+
+    private SimilarMovieIndex(int[][] neighbors) {
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Builds the neighbor lists for the movies, in catalog order.
+     */
+    static SimilarMovieIndex build(List<Movie> movies, int topK) {
+        int size = movies.size();
+        if (topK <= 0 || size < 2) {
+            int[][] empty = new int[size][];
+            Arrays.fill(empty, NO_NEIGHBORS);
+            return new SimilarMovieIndex(empty);
+        }
+        Features features = new Features(movies);
+        int[][] neighbors = new int[size][];
+        ForkJoinPool.commonPool().invoke(new NeighborTask(features, Math.min(topK, size - 1), neighbors, 0, size));
+        return new SimilarMovieIndex(neighbors);
+    }
+
+    /**
+     * Gets the ordinals of the most similar movies, best match first.
+     */
+    int[] neighborsOf(int ordinal) {
+        return neighbors[ordinal];
+    }
+
+    /**
+     * Compact per-movie features: genre tokens and director as dictionary ids, plus year and rating.
+     */
+    private static final class Features {
+        private final int[][] genreTokens;
+        private final int[] directors;
+        private final int[] years;
+        private final double[] ratings;
+
+        private Features(List<Movie> movies) {
+            int size = movies.size();
+            genreTokens = new int[size][];
+            directors = new int[size];
+            years = new int[size];
+            ratings = new double[size];
+            Map<String, Integer> tokenIds = new HashMap<>();
+            Map<String, Integer> directorIds = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                Movie movie = movies.get(i);
+                String[] tokens = movie.getGenre().toLowerCase(Locale.ROOT).split("/");
+                int[] ids = new int[tokens.length];
+                int count = 0;
+                for (String token : tokens) {
+                    String trimmed = token.trim();
+                    if (!trimmed.isEmpty()) {
+                        ids[count++] = tokenIds.computeIfAbsent(trimmed, key -> tokenIds.size());
+                    }
+                }
+                genreTokens[i] = Arrays.stream(ids, 0, count).distinct().sorted().toArray();
+                directors[i] = directorIds.computeIfAbsent(movie.getDirector().trim().toLowerCase(Locale.ROOT),
+                    key -> directorIds.size());
+                years[i] = movie.getYear();
+                ratings[i] = movie.getImdbRating();
+            }
+        }
+
+        private double score(int a, int b) {
+            double genre = jaccard(genreTokens[a], genreTokens[b]);
+            double director = directors[a] == directors[b] ? 1.0 : 0.0;
+            double era = Math.max(0.0, 1.0 - Math.abs(years[a] - years[b]) / ERA_SPAN_YEARS);
+            double rating = Math.max(0.0, 1.0 - Math.abs(ratings[a] - ratings[b]) / RATING_SPAN);
+            return GENRE_WEIGHT * genre + DIRECTOR_WEIGHT * director + ERA_WEIGHT * era + RATING_WEIGHT * rating;
+        }
+
+        private static double jaccard(int[] a, int[] b) {
+            if (a.length == 0 && b.length == 0) {
+                return 0.0;
+            }
+            int shared = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] == b[j]) {
+                    shared++;
+                    i++;
+                    j++;
+                } else if (a[i] < b[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return (double) shared / (a.length + b.length - shared);
+        }
+    }
+
+    /**
+     * Computes the neighbor lists for a range of ordinals, splitting the range until it is small
+     * enough to score sequentially.
+     */
+    private static final class NeighborTask extends RecursiveAction {
+        private final Features features;
+        private final int topK;
+        private final int[][] neighbors;
+        private final int from;
+        private final int to;
+
+        private NeighborTask(Features features, int topK, int[][] neighbors, int from, int to) {
+            this.features = features;
+            this.topK = topK;
+            this.neighbors = neighbors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int ordinal = from; ordinal < to; ordinal++) {
+                    neighbors[ordinal] = topNeighbors(ordinal);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new NeighborTask(features, topK, neighbors, from, middle),
+                new NeighborTask(features, topK, neighbors, middle, to));
+        }
+
+        /**
+         * Keeps the best K candidates in small arrays sorted by descending score; ties go to the
+         * earlier movie in the catalog.
+         */
+        private int[] topNeighbors(int ordinal) {
+            int size = features.years.length;
+            int[] best = new int[topK];
+            double[] bestScores = new double[topK];
+            int count = 0;
+            for (int candidate = 0; candidate < size; candidate++) {
+                if (candidate == ordinal) {
+                    continue;
+                }
+                double score = features.score(ordinal, candidate);
+                if (count == topK && score <= bestScores[count - 1]) {
+                    continue;
+                }
+                int position = count == topK ? topK - 1 : count++;
+                while (position > 0 && bestScores[position - 1] < score) {
+                    best[position] = best[position - 1];
+                    bestScores[position] = bestScores[position - 1];
+                    position--;
+                }
+                best[position] = candidate;
+                bestScores[position] = score;
+            }
+            return count == topK ? best : Arrays.copyOf(best, count);
+        }
+    }
+}
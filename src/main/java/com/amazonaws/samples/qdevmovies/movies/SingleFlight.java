@@ -0,0 +1,92 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent computations, arrr!
+ * The first caller for a key runs the computation; everyone who asks for the same key while it is
+ * still running waits for that result instead of doing the work again. Nothing is remembered once
+ * the computation finishes, so this complements a cache rather than replacing it.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs the computation for the key, or joins the run already in flight for it.
+     * Exceptions thrown by the computation are rethrown to every caller sharing it.
+     */
+    public V execute(K key, Supplier<V> computation) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executions.increment();
+        try {
+            V value = computation.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(executions.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Counters for the coalescing: how many computations actually ran and how many callers
+     * piggybacked on one already in flight (each of those is a computation saved).
+     */
+    public static final class Stats {
+        private final long executions;
+        private final long coalesced;
+        private final long inFlight;
+
+        Stats(long executions, long coalesced, long inFlight) {
+            this.executions = executions;
+            this.coalesced = coalesced;
+            this.inFlight = inFlight;
+        }
+
+        public long getExecutions() {
+            return executions;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getInFlight() {
+            return inFlight;
+        }
+    }
+}
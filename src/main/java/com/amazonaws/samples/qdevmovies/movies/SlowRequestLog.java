@@ -0,0 +1,146 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most recent slow requests, kept in a fixed-size ring buffer in memory, arrr!
+ * Once the buffer is full each new slow request overwrites the oldest one, so the log never holds
+ * more than its capacity no matter how slow the ship gets.
+ */
+@Component
+public class SlowRequestLog {
+    private final long thresholdNanos;
+    private final Entry[] entries;
+    private long recorded;
+
+    @Autowired
+    public SlowRequestLog(MovieProperties properties) {
+        MovieProperties.Tracing tracing = properties.getTracing();
+        this.thresholdNanos = Math.max(0, tracing.getSlowThresholdMillis()) * 1_000_000L;
+        this.entries = new Entry[Math.max(1, tracing.getSlowLogCapacity())];
+    }
+
+    /**
+     * @return whether a request that took this long belongs in the log
+     */
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    public synchronized void record(Entry entry) {
+        entries[(int) (recorded % entries.length)] = entry;
+        recorded++;
+    }
+
+    /**
+     * @return the logged requests, newest first, with how many slow requests were seen in total
+     */
+    public synchronized Snapshot snapshot() {
+        int kept = (int) Math.min(recorded, entries.length);
+        List<Entry> newestFirst = new ArrayList<>(kept);
+        for (long i = recorded - 1; i >= recorded - kept; i--) {
+            newestFirst.add(entries[(int) (i % entries.length)]);
+        }
+        return new Snapshot(thresholdNanos / 1_000_000L, entries.length, recorded, newestFirst);
+    }
+
+    /**
+     * One slow request: what was asked for, how it ended, and where the time went.
+     */
+    public static class Entry {
+        private final String startedAt;
+        private final String method;
+        private final String path;
+        private final Map<String, List<String>> parameters;
+        private final int status;
+        private final long elapsedNanos;
+        private final List<RequestTrace.Stage> stages;
+        private final int droppedStages;
+
+        public Entry(String startedAt, String method, String path, Map<String, List<String>> parameters, int status,
+                     long elapsedNanos, List<RequestTrace.Stage> stages, int droppedStages) {
+            this.startedAt = startedAt;
+            this.method = method;
+            this.path = path;
+            this.parameters = Collections.unmodifiableMap(parameters);
+            this.status = status;
+            this.elapsedNanos = elapsedNanos;
+            this.stages = stages;
+            this.droppedStages = droppedStages;
+        }
+
+        public String getStartedAt() {
+            return startedAt;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Map<String, List<String>> getParameters() {
+            return parameters;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public List<RequestTrace.Stage> getStages() {
+            return stages;
+        }
+
+        public int getDroppedStages() {
+            return droppedStages;
+        }
+    }
+
+    /**
+     * The contents of the log at one moment.
+     */
+    public static class Snapshot {
+        private final long thresholdMillis;
+        private final int capacity;
+        private final long recorded;
+        private final List<Entry> requests;
+
+        Snapshot(long thresholdMillis, int capacity, long recorded, List<Entry> requests) {
+            this.thresholdMillis = thresholdMillis;
+            this.capacity = capacity;
+            this.recorded = recorded;
+            this.requests = Collections.unmodifiableList(requests);
+        }
+
+        public long getThresholdMillis() {
+            return thresholdMillis;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * @return how many slow requests were seen since startup, including those already overwritten
+         */
+        public long getRecorded() {
+            return recorded;
+        }
+
+        public List<Entry> getRequests() {
+            return requests;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed sort orders of a catalog, arrr!
+ * <p>
+ * For every sort field and direction the catalog ordinals are sorted once, when the catalog is
+ * built, into a permutation; ties keep catalog order. Its inverse, the rank of every ordinal, is
+ * kept too. Sorting a result set then needs no movie comparisons: a large result is produced by
+ * walking the permutation and keeping the ordinals in the result, and a small one by sorting its
+ * ordinals by rank.
+ */
+final class SortPermutations {
+    private final List<Movie> movies;
+    private final Map<MovieSort.Field, Order> ascending = new EnumMap<>(MovieSort.Field.class);
+    private final Map<MovieSort.Field, Order> descending = new EnumMap<>(MovieSort.Field.class);
+
+    SortPermutations(List<Movie> movies) {
+        this.movies = movies;
+        for (MovieSort.Field field : MovieSort.Field.values()) {
+            ascending.put(field, new Order(movies, field.comparator(false)));
+            descending.put(field, new Order(movies, field.comparator(true)));
+        }
+    }
+
+    /**
+     * Gets the whole catalog in the given order.
+     */
+    List<Movie> sortAll(MovieSort sort) {
+        if (sort.isCatalogOrder()) {
+            return movies;
+        }
+        int[] permutation = order(sort).permutation;
+        List<Movie> sorted = new ArrayList<>(permutation.length);
+        for (int ordinal : permutation) {
+            sorted.add(movies.get(ordinal));
+        }
+        return sorted;
+    }
+
+    /**
+     * Sorts the movies at the given catalog ordinals.
+     */
+    List<Movie> sort(int[] ordinals, MovieSort sort) {
+        Order order = order(sort);
+        int count = ordinals.length;
+        List<Movie> sorted = new ArrayList<>(count);
+        if (count == 0) {
+            return sorted;
+        }
+        double log2 = Math.log(count) / Math.log(2);
+        if (count * Math.max(1.0, log2) < movies.size()) {
+            long[] keyed = new long[count];
+            for (int i = 0; i < count; i++) {
+                keyed[i] = ((long) order.ranks[ordinals[i]] << 32) | ordinals[i];
+            }
+            Arrays.sort(keyed);
+            for (long key : keyed) {
+                sorted.add(movies.get((int) key));
+            }
+        } else {
+            BitSet members = new BitSet(movies.size());
+            for (int ordinal : ordinals) {
+                members.set(ordinal);
+            }
+            for (int ordinal : order.permutation) {
+                if (members.get(ordinal)) {
+                    sorted.add(movies.get(ordinal));
+                }
+            }
+        }
+        return sorted;
+    }
+
+    private Order order(MovieSort sort) {
+        return (sort.isDescending() ? descending : ascending).get(sort.getField());
+    }
+
+    /**
+     * One sort order: the ordinals in sorted order, and each ordinal's position in it.
+     */
+    private static final class Order {
+        private final int[] permutation;
+        private final int[] ranks;
+
+        private Order(List<Movie> movies, Comparator<Movie> comparator) {
+            Integer[] boxed = new Integer[movies.size()];
+            for (int i = 0; i < boxed.length; i++) {
+                boxed[i] = i;
+            }
+            // Arrays.sort on objects is stable, so ties stay in catalog order
+            Arrays.sort(boxed, (a, b) -> comparator.compare(movies.get(a), movies.get(b)));
+            permutation = new int[boxed.length];
+            ranks = new int[boxed.length];
+            for (int position = 0; position < boxed.length; position++) {
+                permutation[position] = boxed[position];
+                ranks[boxed[position]] = position;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Times every request and keeps the slow ones, arrr!
+ * <p>
+ * Starts a {@link RequestTrace} for the request so the spans opened along the way are collected.
+ * When the request takes at least the slow threshold, it goes to the {@link SlowRequestLog} along
+ * with its parameters, its status and the timing of every stage, and a one-line summary is logged.
+ */
+@Component
+public class TracingFilter extends OncePerRequestFilter {
+    private static final Logger logger = LogManager.getLogger(TracingFilter.class);
+
+    private final boolean enabled;
+    private final SlowRequestLog slowRequestLog;
+
+    @Autowired
+    public TracingFilter(MovieProperties properties, SlowRequestLog slowRequestLog) {
+        this.enabled = properties.getTracing().isEnabled();
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || WarmupRunner.isWarmup(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startedAt = System.currentTimeMillis();
+        RequestTrace trace = RequestTrace.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long elapsedNanos = trace.finish();
+            if (slowRequestLog.isSlow(elapsedNanos)) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                List<RequestTrace.Stage> stages = trace.getStages();
+                slowRequestLog.record(new SlowRequestLog.Entry(Instant.ofEpochMilli(startedAt).toString(),
+                    request.getMethod(), path, parametersOf(request), response.getStatus(), elapsedNanos,
+                    stages, trace.getDroppedStages()));
+                logger.warn("Slow request {} {} took {} ms: {}", request.getMethod(), path,
+                    millis(elapsedNanos), summarize(stages));
+            }
+        }
+    }
+
+    private static Map<String, List<String>> parametersOf(HttpServletRequest request) {
+        Map<String, List<String>> parameters = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
+            parameters.put(parameter.getKey(), Arrays.asList(parameter.getValue()));
+        }
+        return parameters;
+    }
+
+    private static String summarize(List<RequestTrace.Stage> stages) {
+        StringJoiner summary = new StringJoiner(", ");
+        for (RequestTrace.Stage stage : stages) {
+            summary.add(stage.getName() + "=" + millis(stage.getElapsedNanos()) + "ms");
+        }
+        return summary.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,59 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Splits a traced request into its {@code handler} stage, the controller method with everything
+ * it calls, and its {@code render} stage, where Thymeleaf turns the model into HTML.
+ */
+@Component
+public class TracingInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+    private static final String OPEN_SPAN = TracingInterceptor.class.getName() + ".span";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(OPEN_SPAN, RequestTrace.span("handler"));
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        closeOpenSpan(request);
+        if (modelAndView != null && modelAndView.hasView()) {
+            request.setAttribute(OPEN_SPAN, RequestTrace.span("render"));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        closeOpenSpan(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        closeOpenSpan(request);
+    }
+
+    private static void closeOpenSpan(HttpServletRequest request) {
+        Object span = request.getAttribute(OPEN_SPAN);
+        if (span instanceof RequestTrace.Span) {
+            ((RequestTrace.Span) span).close();
+            request.removeAttribute(OPEN_SPAN);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An inverted index from three-character substrings to the catalog ordinals whose value contains them, arrr!
+ * <p>
+ * Any value containing a query also contains every trigram of the query, so intersecting the
+ * posting lists of the query's trigrams gives a superset of the matches that only needs checking
+ * with {@link String#contains}. The shortest posting list doubles as a cheap upper bound on how
+ * many values can match, which is what the query planner uses as its estimate.
+ */
+final class TrigramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private static final int[] NO_ORDINALS = new int[0];
+
+    private final Map<String, int[]> postings;
+
+    /**
+     * Indexes the values, which must already be lowercased, in catalog order.
+     */
+    TrigramIndex(List<String> values) {
+        Map<String, Postings> building = new HashMap<>();
+        for (int ordinal = 0; ordinal < values.size(); ordinal++) {
+            String value = values.get(ordinal);
+            for (int start = 0; start + GRAM_LENGTH <= value.length(); start++) {
+                building.computeIfAbsent(value.substring(start, start + GRAM_LENGTH), key -> new Postings())
+                    .add(ordinal);
+            }
+        }
+        this.postings = new HashMap<>(building.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Postings> entry : building.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * @return whether the query is long enough to be looked up in the index
+     */
+    static boolean isIndexable(String query) {
+        return query.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Estimates how many values contain the query: the length of its rarest trigram's posting list.
+     *
+     * @return the estimate, or -1 when the query is too short to be indexed
+     */
+    int estimate(String query) {
+        if (!isIndexable(query)) {
+            return -1;
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (String gram : gramsOf(query)) {
+            estimate = Math.min(estimate, postingsOf(gram).length);
+        }
+        return estimate;
+    }
+
+    /**
+     * Gets the ordinals of every value that could contain the query, in ascending order.
+     * The caller still has to check each candidate.
+     *
+     * @throws IllegalArgumentException if the query is too short to be indexed
+     */
+    int[] candidates(String query) {
+        if (!isIndexable(query)) {
+            throw new IllegalArgumentException("Arrr! A trigram lookup needs at least " + GRAM_LENGTH + " characters");
+        }
+        int[][] lists = gramsOf(query).stream().map(this::postingsOf).toArray(int[][]::new);
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists[0];
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            result = intersect(result, lists[i]);
+        }
+        return result;
+    }
+
+    private int[] postingsOf(String gram) {
+        return postings.getOrDefault(gram, NO_ORDINALS);
+    }
+
+    private static Set<String> gramsOf(String query) {
+        Set<String> grams = new HashSet<>();
+        for (int start = 0; start + GRAM_LENGTH <= query.length(); start++) {
+            grams.add(query.substring(start, start + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] shared = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared[count++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(shared, count);
+    }
+
+    /**
+     * A growing posting list. Ordinals arrive in ascending order, so a repeat can only be the last one added.
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        private void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(ordinals, size);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Warms the ship up before she takes on passengers, arrr!
+ * <p>
+ * Once the application has started, a background thread sends a synthetic mix of list, search and
+ * details requests to the instance's own HTTP port. That runs every layer a real request does
+ * (filters, controllers, search, reviews and the Thymeleaf views), so the JIT compiles the hot
+ * paths and the search and card caches fill up. The instance reports ready only after the catalog
+ * is loaded, its indexes are built and the warm-up has finished.
+ * <p>
+ * Warm-up requests carry the {@value #WARMUP_HEADER} header, so they stay out of the slow request
+ * log, the search cache's hit-rate stats and admission control's latency samples. Its value is a
+ * random token of this process, so a client cannot send its own requests past admission control.
+ */
+@Component
+public class WarmupRunner {
+    private static final Logger logger = LogManager.getLogger(WarmupRunner.class);
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+    /** Header marking the instance's own warm-up requests. */
+    static final String WARMUP_HEADER = "X-Movies-Warmup";
+    /** The value of {@link #WARMUP_HEADER}, picked anew every time the application starts. */
+    static final String WARMUP_TOKEN = Long.toHexString(new SecureRandom().nextLong());
+
+    /**
+     * Where the instance is on its way to serving traffic.
+     */
+    public enum State {
+        /** The application context is still starting: catalog loading and index building. */
+        STARTING,
+        /** Sending warm-up traffic. */
+        WARMING_UP,
+        /** Warm-up is done (or disabled); the instance should get traffic. */
+        READY
+    }
+
+    private final MovieService movieService;
+    private final MovieProperties.Warmup settings;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile State state = State.STARTING;
+    private volatile long durationMillis;
+
+    @Autowired
+    public WarmupRunner(MovieService movieService, MovieProperties properties) {
+        this.movieService = movieService;
+        this.settings = properties.getWarmup();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!settings.isEnabled() || settings.getRequests() <= 0) {
+            logger.info("Warm-up disabled, ready for treasure hunters");
+            state = State.READY;
+            return;
+        }
+        Environment environment = event.getApplicationContext().getEnvironment();
+        String baseUrl = "http://localhost:" + environment.getProperty("local.server.port")
+            + environment.getProperty("server.servlet.context-path", "");
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
+        requestFactory.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            request.getHeaders().set(WARMUP_HEADER, WARMUP_TOKEN);
+            return execution.execute(request, body);
+        });
+
+        state = State.WARMING_UP;
+        Thread thread = new Thread(() -> warmUp(path -> {
+            try {
+                restTemplate.getForEntity(baseUrl + path, String.class);
+                return true;
+            } catch (RestClientException e) {
+                return false;
+            }
+        }), "movie-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Sends the warm-up requests and marks the instance ready when they are done or the time is up.
+     *
+     * @param client sends a GET for an application path and says whether it succeeded
+     */
+    void warmUp(Predicate<String> client) {
+        state = State.WARMING_UP;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(settings.getMaxDurationSeconds());
+        List<String> paths = plan(settings.getRequests(), new Random(settings.getRequests()));
+        logger.info("Ahoy! Warming up with {} requests before reporting ready", paths.size());
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, settings.getConcurrency()));
+        AtomicInteger next = new AtomicInteger();
+        try {
+            for (int i = 0; i < Math.max(1, settings.getConcurrency()); i++) {
+                workers.execute(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < paths.size() && System.nanoTime() < deadline) {
+                        sent.increment();
+                        if (!client.test(paths.get(index))) {
+                            failed.increment();
+                        }
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(settings.getMaxDurationSeconds() + REQUEST_TIMEOUT_MILLIS / 1000, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            state = State.READY;
+        }
+        logger.info("Warm-up finished: {} requests ({} failed) in {} ms, ready for treasure hunters",
+            sent.sum(), failed.sum(), durationMillis);
+    }
+
+    /**
+     * Builds the synthetic request mix from the local catalog: mostly searches on title words and
+     * genres, then detail pages (which also read the reviews), and some full list pages.
+     */
+    private List<String> plan(int requests, Random random) {
+        List<Movie> movies = movieService.getLocalMovies();
+        List<String> paths = new ArrayList<>(requests);
+        if (movies.isEmpty()) {
+            return paths;
+        }
+        for (int i = 0; i < requests; i++) {
+            Movie movie = movies.get(random.nextInt(movies.size()));
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                String[] words = movie.getMovieName().toLowerCase(Locale.ROOT).split("\\s+");
+                UriComponentsBuilder search = UriComponentsBuilder.fromPath("/movies/search");
+                if (kind < 3) {
+                    search.queryParam("name", words[random.nextInt(words.length)]);
+                } else {
+                    search.queryParam("genre", movie.getGenre());
+                }
+                paths.add(search.build().encode().toUriString());
+            } else if (kind < 9) {
+                paths.add("/movies/" + movie.getId() + "/details");
+            } else {
+                paths.add("/movies");
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Whether the request is one of this instance's own warm-up requests.
+     */
+    static boolean isWarmup(HttpServletRequest request) {
+        return WARMUP_TOKEN.equals(request.getHeader(WARMUP_HEADER));
+    }
+
+    /**
+     * Whether the request being served on this thread is a warm-up request; {@code false} outside
+     * of a request.
+     */
+    static boolean isWarmupRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes
+            && isWarmup(((ServletRequestAttributes) attributes).getRequest());
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Status status() {
+        return new Status(state, sent.sum(), failed.sum(), durationMillis, movieService.getCatalogVersion());
+    }
+
+    /**
+     * What the readiness endpoint reports.
+     */
+    public static final class Status {
+        private final State state;
+        private final long warmupRequests;
+        private final long warmupFailures;
+        private final long warmupMillis;
+        private final long catalogVersion;
+
+        Status(State state, long warmupRequests, long warmupFailures, long warmupMillis, long catalogVersion) {
+            this.state = state;
+            this.warmupRequests = warmupRequests;
+            this.warmupFailures = warmupFailures;
+            this.warmupMillis = warmupMillis;
+            this.catalogVersion = catalogVersion;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getWarmupRequests() {
+            return warmupRequests;
+        }
+
+        public long getWarmupFailures() {
+            return warmupFailures;
+        }
+
+        public long getWarmupMillis() {
+            return warmupMillis;
+        }
+
+        public long getCatalogVersion() {
+            return catalogVersion;
+        }
+    }
+}
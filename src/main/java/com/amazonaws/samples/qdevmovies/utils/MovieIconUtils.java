@@ -1,22 +1,57 @@
 package com.amazonaws.samples.qdevmovies.utils;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Movie icons, looked up by title in the {@code movie-icons.json} mapping on the classpath.
+ * The mapping is read once; movies resolve their icon when they are created.
+ */
 public class MovieIconUtils {
-    
+    private static final Logger logger = LogManager.getLogger(MovieIconUtils.class);
+    private static final String MAPPING_RESOURCE = "movie-icons.json";
+    private static final String FALLBACK_ICON = "🎬";
+
+    private static final Map<String, String> TITLE_ICONS;
+    private static final String DEFAULT_ICON;
+
+    static {
+        Map<String, String> titleIcons = new HashMap<>();
+        String defaultIcon = FALLBACK_ICON;
+        try (InputStream inputStream = MovieIconUtils.class.getClassLoader().getResourceAsStream(MAPPING_RESOURCE)) {
+            if (inputStream == null) {
+                logger.warn("Arrr! No {} found, every movie gets the default icon", MAPPING_RESOURCE);
+            } else {
+                JSONObject mapping = new JSONObject(StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8));
+                defaultIcon = mapping.optString("default", FALLBACK_ICON);
+                JSONObject titles = mapping.optJSONObject("titles");
+                if (titles != null) {
+                    for (String title : titles.keySet()) {
+                        titleIcons.put(title.trim().toLowerCase(Locale.ROOT), titles.getString(title));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to read movie icon mapping {}, every movie gets the default icon", MAPPING_RESOURCE, e);
+        }
+        TITLE_ICONS = Collections.unmodifiableMap(titleIcons);
+        DEFAULT_ICON = defaultIcon;
+    }
+
     public static String getMovieIcon(String movieName) {
-        switch (movieName.toLowerCase()) {
-            case "the prison escape": return "🔒";
-            case "the family boss": return "👔";
-            case "the masked hero": return "🦇";
-            case "urban stories": return "🌆";
-            case "life journey": return "🏃";
-            case "dream heist": return "💭";
-            case "the virtual world": return "🕶️";
-            case "the wise guys": return "🤵";
-            case "the quest for the ring": return "💍";
-            case "space wars: the beginning": return "🚀";
-            case "the factory owner": return "🏭";
-            case "underground club": return "👊";
-            default: return "🎬";
+        if (movieName == null) {
+            return DEFAULT_ICON;
         }
+        return TITLE_ICONS.getOrDefault(movieName.trim().toLowerCase(Locale.ROOT), DEFAULT_ICON);
     }
 }
@@ -0,0 +1,333 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.MovieProperties;
+import com.amazonaws.samples.qdevmovies.movies.MovieService;
+import com.amazonaws.samples.qdevmovies.movies.ReviewService;
+import com.amazonaws.samples.qdevmovies.movies.SearchCriteria;
+import com.amazonaws.samples.qdevmovies.movies.SearchResultCache;
+import com.amazonaws.samples.qdevmovies.movies.SingleFlight;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Hammers the shared {@link MovieService} and {@link ReviewService} read paths from many threads.
+ * <p>
+ * The scaling phase runs a mix of searches, ID lookups and review reads at 1, 2, 4 ... N threads and
+ * reports the throughput, speedup and efficiency of each step, along with how long the workers spent
+ * blocked on monitors or waiting on locks. The consistency phase runs the same mix at N threads
+ * while other threads keep reloading the catalog, alternating between two editions of it. Every
+ * answer is checked as it arrives:
+ * <ul>
+ *   <li>A torn read is a search mixing movies of both editions, returning movies that do not match,
+ *   or returning them out of catalog order. A lookup returning the wrong movie, a review list whose
+ *   size changes, or a catalog version going backwards also count.</li>
+ *   <li>A lost update is a reload whose version was skipped or handed out twice, or a cache or
+ *   coalescing counter that does not add up to the number of searches made.</li>
+ * </ul>
+ * Tagged {@code load}, so it only runs with the {@code load-test} profile:
+ * {@code mvn test -Pload-test -Dtest=ConcurrencyStressTest -Dstress.maxThreads=32 -Dstress.stepSeconds=5}.
+ */
+@Tag("load")
+@DisplayName("Concurrency Stress Test")
+public class ConcurrencyStressTest {
+    private static final String SECOND_EDITION = " II";
+    private static final int REVIEWED_MOVIES = 12;
+
+    private final int catalogSize = Integer.getInteger("stress.catalogSize", 2000);
+    private final int maxThreads = Integer.getInteger("stress.maxThreads",
+        Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    private final int stepSeconds = Integer.getInteger("stress.stepSeconds", 3);
+    private final int reloaderThreads = Integer.getInteger("stress.reloaders", 2);
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private MovieService movieService;
+    private ReviewService reviewService;
+    private int[] reviewCounts;
+
+    @Test
+    @DisplayName("Should scale reads across threads with no torn reads or lost updates during reloads")
+    public void testConcurrentReads() throws Exception {
+        Path firstEdition = Files.createTempFile("stress-movies", ".json");
+        Path secondEdition = Files.createTempFile("stress-movies-ii", ".json");
+        Path catalogFile = Files.createTempFile("stress-catalog", ".json");
+        try {
+            SyntheticCatalog.write(firstEdition, catalogSize, 7);
+            writeSecondEdition(firstEdition, secondEdition);
+            Files.copy(firstEdition, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+            MovieProperties properties = new MovieProperties();
+            properties.getCatalog().setLocation(catalogFile.toUri().toString());
+            movieService = new MovieService(properties);
+            reviewService = new ReviewService();
+            reviewCounts = new int[REVIEWED_MOVIES + 1];
+            for (int id = 1; id <= REVIEWED_MOVIES; id++) {
+                reviewCounts[id] = reviewService.getReviewsForMovie(id).size();
+            }
+            if (threads.isThreadContentionMonitoringSupported()) {
+                threads.setThreadContentionMonitoringEnabled(true);
+            }
+
+            StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "Concurrency stress: %d synthetic movies, %d cores, %ds per step%n",
+                catalogSize, Runtime.getRuntime().availableProcessors(), stepSeconds));
+            report.append(String.format(Locale.ROOT, "%-8s %12s %9s %11s %11s %11s %8s %7s%n",
+                "threads", "ops/s", "speedup", "efficiency", "blocked ms", "waited ms", "torn", "errors"));
+            // Let the JIT settle first so the single-thread baseline is not measured cold
+            Step total = run(maxThreads, null, null);
+            double baseline = 0;
+            for (int threadCount : threadCounts()) {
+                Step step = run(threadCount, null, null);
+                baseline = baseline == 0 ? step.opsPerSecond() : baseline;
+                row(report, threadCount, step, baseline);
+                total.add(step);
+            }
+
+            Set<Long> reloadedVersions = ConcurrentHashMap.newKeySet();
+            long versionBefore = movieService.getCatalogVersion();
+            Step reloading = run(maxThreads, new Path[] {firstEdition, secondEdition, catalogFile}, reloadedVersions);
+            report.append(String.format(Locale.ROOT, "With %d reloader threads: %d reloads%n",
+                reloaderThreads, reloading.reloads));
+            row(report, maxThreads, reloading, baseline);
+            total.add(reloading);
+
+            long lostUpdates = lostUpdates(total, versionBefore, reloadedVersions, reloading.reloads);
+            report.append(String.format(Locale.ROOT, "torn reads: %d, lost updates: %d, errors: %d%s%n",
+                total.tornReads, lostUpdates, total.errors,
+                total.firstError == null ? "" : " (first: " + total.firstError + ")"));
+            System.out.println(report);
+
+            assertEquals(0, total.errors, "Arrr! Reads failed under concurrency: " + total.firstError);
+            assertEquals(0, total.tornReads, "Readers saw a half-built or mixed catalog, matey!");
+            assertEquals(0, lostUpdates, "Concurrent updates were lost");
+            assertTrue(reloadedVersions.size() > 0, "The catalog should have been reloaded during the run");
+        } finally {
+            if (movieService != null) {
+                movieService.shutdown();
+            }
+            Files.deleteIfExists(firstEdition);
+            Files.deleteIfExists(secondEdition);
+            Files.deleteIfExists(catalogFile);
+        }
+    }
+
+    private List<Integer> threadCounts() {
+        List<Integer> counts = new ArrayList<>();
+        for (int count = 1; count < maxThreads; count *= 2) {
+            counts.add(count);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    /**
+     * Runs the read mix on {@code threadCount} threads for one step, with reloader threads alongside
+     * when given the catalog editions to alternate between.
+     */
+    private Step run(int threadCount, Path[] editions, Set<Long> reloadedVersions) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount + (editions == null ? 0 : reloaderThreads));
+        try {
+            long start = System.nanoTime();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(stepSeconds);
+            List<Future<Step>> readers = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                long seed = 31L * threadCount + i;
+                readers.add(pool.submit(() -> read(seed, deadline)));
+            }
+            List<Future<Integer>> reloaders = new ArrayList<>();
+            for (int i = 0; editions != null && i < reloaderThreads; i++) {
+                int first = i;
+                reloaders.add(pool.submit(() -> reload(editions, first, deadline, reloadedVersions)));
+            }
+            Step step = new Step();
+            for (Future<Step> reader : readers) {
+                step.add(reader.get());
+            }
+            for (Future<Integer> reloader : reloaders) {
+                step.reloads += reloader.get();
+            }
+            step.elapsedNanos = System.nanoTime() - start;
+            return step;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Step read(long seed, long deadline) {
+        Random random = new Random(seed);
+        Step step = new Step();
+        ThreadInfo before = threads.getThreadInfo(Thread.currentThread().getId());
+        long lastVersion = 0;
+        while (System.nanoTime() < deadline) {
+            try {
+                long version = movieService.getCatalogVersion();
+                if (version < lastVersion) {
+                    step.tornReads++;
+                }
+                lastVersion = version;
+                int dice = random.nextInt(10);
+                if (dice < 5) {
+                    step.tornReads += checkSearch(randomCriteria(random));
+                    step.searches++;
+                } else if (dice < 8) {
+                    long id = 1 + random.nextInt(catalogSize);
+                    Optional<Movie> movie = movieService.getMovieById(id);
+                    if (!movie.isPresent() || movie.get().getId() != id) {
+                        step.tornReads++;
+                    }
+                } else {
+                    int id = 1 + random.nextInt(REVIEWED_MOVIES);
+                    if (reviewService.getReviewsForMovie(id).size() != reviewCounts[id]) {
+                        step.tornReads++;
+                    }
+                }
+                step.operations++;
+            } catch (RuntimeException e) {
+                step.errors++;
+                step.firstError = step.firstError == null ? e.toString() : step.firstError;
+            }
+        }
+        ThreadInfo after = threads.getThreadInfo(Thread.currentThread().getId());
+        if (before != null && after != null && before.getBlockedTime() >= 0) {
+            step.blockedMillis += after.getBlockedTime() - before.getBlockedTime();
+            step.waitedMillis += after.getWaitedTime() - before.getWaitedTime();
+        }
+        return step;
+    }
+
+    private SearchCriteria randomCriteria(Random random) {
+        String name = random.nextBoolean()
+            ? SyntheticCatalog.pick(random, SyntheticCatalog.TITLE_WORDS).toLowerCase(Locale.ROOT) : null;
+        String genre = name == null || random.nextBoolean()
+            ? SyntheticCatalog.pick(random, SyntheticCatalog.GENRES).split("/")[0] : null;
+        return SearchCriteria.of(name, null, genre);
+    }
+
+    /**
+     * @return 1 if the search result is torn, otherwise 0
+     */
+    private int checkSearch(SearchCriteria criteria) {
+        List<Movie> found = movieService.searchMovieTreasures(criteria.getName(), null, criteria.getGenre());
+        Boolean secondEdition = null;
+        long lastId = 0;
+        for (Movie movie : found) {
+            boolean second = movie.getDirector().endsWith(SECOND_EDITION);
+            if ((secondEdition != null && secondEdition != second) || !criteria.matches(movie) || movie.getId() <= lastId) {
+                return 1;
+            }
+            secondEdition = second;
+            lastId = movie.getId();
+        }
+        return 0;
+    }
+
+    /**
+     * Keeps swapping the catalog file between the two editions and reloading it until the deadline.
+     *
+     * @return how many reloads this thread made
+     */
+    private int reload(Path[] editions, int first, long deadline, Set<Long> reloadedVersions) throws Exception {
+        Path catalogFile = editions[2];
+        Path staging = Files.createTempFile(catalogFile.getParent(), "stress-staging", ".json");
+        int reloads = 0;
+        try {
+            while (System.nanoTime() < deadline) {
+                Files.copy(editions[(first + reloads) % 2], staging, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(staging, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                reloadedVersions.add(movieService.reloadCatalog().getVersion());
+                reloads++;
+            }
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+        return reloads;
+    }
+
+    /**
+     * Counts the updates that went missing: reload versions skipped or handed out twice, and cache
+     * lookups or coalesced searches that do not add up to the searches made.
+     */
+    private long lostUpdates(Step total, long versionBefore, Set<Long> reloadedVersions, int reloads) {
+        long lost = Math.abs(movieService.getCatalogVersion() - versionBefore - reloads);
+        lost += reloads - reloadedVersions.size();
+        Optional<SearchResultCache.Stats> cache = movieService.getSearchCacheStats();
+        if (cache.isPresent()) {
+            lost += Math.abs(cache.get().getHits() + cache.get().getMisses() - total.searches);
+            Optional<SingleFlight.Stats> flights = movieService.getSearchCoalescingStats();
+            if (flights.isPresent()) {
+                lost += Math.abs(flights.get().getExecutions() + flights.get().getCoalesced() - cache.get().getMisses());
+            }
+        }
+        return lost;
+    }
+
+    private static void row(StringBuilder report, int threadCount, Step step, double baseline) {
+        double speedup = step.opsPerSecond() / baseline;
+        report.append(String.format(Locale.ROOT, "%-8d %12.0f %8.2fx %10.0f%% %11d %11d %8d %7d%n",
+            threadCount, step.opsPerSecond(), speedup, 100.0 * speedup / threadCount,
+            step.blockedMillis, step.waitedMillis, step.tornReads, step.errors));
+    }
+
+    private static void writeSecondEdition(Path firstEdition, Path secondEdition) throws Exception {
+        JSONArray movies = new JSONArray(new String(Files.readAllBytes(firstEdition), StandardCharsets.UTF_8));
+        for (int i = 0; i < movies.length(); i++) {
+            JSONObject movie = movies.getJSONObject(i);
+            movie.put("director", movie.getString("director") + SECOND_EDITION);
+        }
+        Files.write(secondEdition, movies.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * What one reader, or a whole step, did and saw.
+     */
+    private static final class Step {
+        private long elapsedNanos;
+        private long operations;
+        private long searches;
+        private long tornReads;
+        private long errors;
+        private long blockedMillis;
+        private long waitedMillis;
+        private int reloads;
+        private String firstError;
+
+        private void add(Step other) {
+            operations += other.operations;
+            searches += other.searches;
+            tornReads += other.tornReads;
+            errors += other.errors;
+            blockedMillis += other.blockedMillis;
+            waitedMillis += other.waitedMillis;
+            reloads += other.reloads;
+            firstError = firstError == null ? other.firstError : firstError;
+        }
+
+        private double opsPerSecond() {
+            return elapsedNanos <= 0 ? 0 : operations * 1e9 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import com.amazonaws.samples.qdevmovies.movies.CborMovieEncoder;
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.MovieProperties;
+import com.amazonaws.samples.qdevmovies.movies.MovieService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Compares the payload size and the encode and decode times of JSON and CBOR for movie lists of
+ * a few sizes, with CBOR both encoded from scratch and assembled from the per-movie cache. Tagged
+ * {@code load}, so it only runs with the {@code load-test} profile:
+ * {@code mvn test -Pload-test -Dtest=EncodingBenchmark -Dloadtest.catalogSize=10000 -Dbenchmark.millis=1000}.
+ */
+@Tag("load")
+@DisplayName("Encoding Benchmark")
+public class EncodingBenchmark {
+    private static final int[] BATCH_SIZES = {1, 100, Integer.MAX_VALUE};
+
+    private long measureMillis;
+
+    @Test
+    @DisplayName("Should report the size and speed of JSON and CBOR movie payloads")
+    public void testJsonVersusCbor() throws Exception {
+        int catalogSize = Integer.getInteger("loadtest.catalogSize", 10_000);
+        measureMillis = Integer.getInteger("benchmark.millis", 1000);
+        Path catalogFile = Files.createTempFile("benchmark-movies", ".json");
+        try {
+            SyntheticCatalog.write(catalogFile, catalogSize, 42);
+            MovieProperties properties = new MovieProperties();
+            properties.getCatalog().setLocation(catalogFile.toUri().toString());
+            MovieService movieService = new MovieService(properties);
+            ObjectMapper jsonMapper = new Jackson2ObjectMapperBuilder().build();
+            ObjectMapper cborMapper = new Jackson2ObjectMapperBuilder().factory(new CBORFactory()).build();
+            CborMovieEncoder encoder = new CborMovieEncoder(new Jackson2ObjectMapperBuilder(), movieService, properties);
+
+            StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "Encoding benchmark: %d synthetic movies, %d ms per measurement%n", catalogSize, measureMillis));
+            report.append(String.format(Locale.ROOT, "%-7s %-12s %11s %7s %12s %12s%n",
+                "movies", "format", "bytes", "size", "encode us", "decode us"));
+            for (int batchSize : BATCH_SIZES) {
+                List<Movie> movies = movieService.getAllMovies().subList(0, Math.min(batchSize, catalogSize));
+                byte[] json = jsonMapper.writeValueAsBytes(movies);
+                byte[] cbor = cborMapper.writeValueAsBytes(movies);
+                byte[] cached = encoder.encodeMovies(movies);
+                assertArrayEquals(cbor, cached, "Cached CBOR should be byte for byte the same, arrr!");
+                assertTrue(cbor.length < json.length, "CBOR should be smaller than JSON");
+
+                double jsonDecode = micros(() -> jsonMapper.readTree(json));
+                double cborDecode = micros(() -> cborMapper.readTree(cbor));
+                row(report, movies.size(), "json", json.length, json.length,
+                    micros(() -> jsonMapper.writeValueAsBytes(movies)), jsonDecode);
+                row(report, movies.size(), "cbor", cbor.length, json.length,
+                    micros(() -> cborMapper.writeValueAsBytes(movies)), cborDecode);
+                row(report, movies.size(), "cbor-cached", cached.length, json.length,
+                    micros(() -> encoder.encodeMovies(movies)), cborDecode);
+            }
+            System.out.println(report);
+        } finally {
+            Files.deleteIfExists(catalogFile);
+        }
+    }
+
+    private static void row(StringBuilder report, int movies, String format, int bytes, int jsonBytes,
+                            double encodeMicros, double decodeMicros) {
+        report.append(String.format(Locale.ROOT, "%-7d %-12s %11d %6.0f%% %12.2f %12.2f%n",
+            movies, format, bytes, 100.0 * bytes / jsonBytes, encodeMicros, decodeMicros));
+    }
+
+    /**
+     * Runs the operation for a warm-up period, then for the measurement period.
+     *
+     * @return the mean time of one run in microseconds
+     */
+    private double micros(Operation operation) throws Exception {
+        runFor(measureMillis / 2, operation);
+        long start = System.nanoTime();
+        long runs = runFor(measureMillis, operation);
+        return (System.nanoTime() - start) / 1000.0 / runs;
+    }
+
+    private static long runFor(long millis, Operation operation) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long runs = 0;
+        do {
+            operation.run();
+            runs++;
+        } while (System.nanoTime() < deadline);
+        return runs;
+    }
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+}
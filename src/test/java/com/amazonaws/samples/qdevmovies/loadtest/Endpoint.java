@@ -0,0 +1,51 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The user-facing endpoints the load test drives, and how each one picks its next request.
+ * Searches and detail lookups favour a few popular values, the way real traffic does.
+ */
+enum Endpoint {
+    LIST {
+        @Override
+        String nextPath(Random random, int catalogSize) {
+            return "/movies";
+        }
+    },
+    SEARCH {
+        @Override
+        String nextPath(Random random, int catalogSize) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    return "/movies/search?name=" + skewedPick(random, SyntheticCatalog.TITLE_WORDS).toLowerCase(Locale.ROOT);
+                case 1:
+                    return "/movies/search?genre=" + skewedPick(random, SyntheticCatalog.GENRES).replace("/", "%2F");
+                default:
+                    return "/movies/search?name=" + skewedPick(random, SyntheticCatalog.TITLE_WORDS)
+                        + "&genre=" + skewedPick(random, SyntheticCatalog.GENRES).replace("/", "%2F");
+            }
+        }
+    },
+    DETAILS {
+        @Override
+        String nextPath(Random random, int catalogSize) {
+            return "/movies/" + (1 + skewedIndex(random, catalogSize)) + "/details";
+        }
+    };
+
+    abstract String nextPath(Random random, int catalogSize);
+
+    private static String skewedPick(Random random, String[] values) {
+        return values[skewedIndex(random, values.length)];
+    }
+
+    /**
+     * Picks an index in [0, size) with a roughly Zipf-like bias towards the low end.
+     */
+    static int skewedIndex(Random random, int size) {
+        double u = random.nextDouble();
+        return (int) Math.min(size - 1, Math.floor(Math.pow(size + 1.0, u)) - 1);
+    }
+}
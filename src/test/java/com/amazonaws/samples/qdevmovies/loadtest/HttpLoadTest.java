@@ -0,0 +1,30 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Runs the load test harness from Maven. Tagged {@code load} so it only runs with the
+ * {@code load-test} profile: {@code mvn test -Pload-test -Dloadtest.rate=500}.
+ */
+@Tag("load")
+@DisplayName("HTTP Load Test")
+public class HttpLoadTest {
+
+    @Test
+    @DisplayName("Should sustain the configured arrival rate and report latency percentiles")
+    public void testOpenModelLoad() throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        LoadTestHarness.LoadTestReport report = new LoadTestHarness(config).run();
+
+        System.out.println(report.toText());
+        report.writeJson(config.getReportFile());
+
+        assertTrue(report.totalRequests() > 0, "The load test should have had some requests served, matey!");
+        assertTrue(report.totalErrors() * 100 <= report.totalRequests() + report.totalShed(),
+            "Arrr! More than 1% of requests failed: " + report.totalErrors());
+    }
+}
@@ -0,0 +1,83 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects request latencies for one endpoint. Latencies are kept exactly, in a preallocated
+ * array, so percentiles are computed from every sample rather than estimated. Requests the server
+ * shed with a 503 are only counted: their quick rejections would otherwise flatter the percentiles.
+ */
+final class LatencyRecorder {
+    private final long[] latencies;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    LatencyRecorder(int capacity) {
+        this.latencies = new long[capacity];
+    }
+
+    /**
+     * @param status the HTTP status, or a negative value when the request failed without one
+     */
+    void record(long latencyNanos, int status) {
+        if (status == 503) {
+            shed.incrementAndGet();
+            return;
+        }
+        int index = count.getAndIncrement();
+        if (index < latencies.length) {
+            latencies[index] = latencyNanos;
+        }
+        if (status < 0 || status >= 400) {
+            errors.incrementAndGet();
+        }
+    }
+
+    Summary summarize(String name, double measuredSeconds) {
+        int samples = Math.min(count.get(), latencies.length);
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return new Summary(name, samples, errors.get(), shed.get(), samples / measuredSeconds,
+            percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+            samples == 0 ? 0 : sorted[samples - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    /**
+     * Throughput and latency percentiles of one endpoint (or all of them) over the measured run.
+     */
+    static final class Summary {
+        final String name;
+        final int requests;
+        final long errors;
+        final long shed;
+        final double throughput;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long p999Nanos;
+        final long maxNanos;
+
+        Summary(String name, int requests, long errors, long shed, double throughput, long p50Nanos, long p99Nanos,
+                long p999Nanos, long maxNanos) {
+            this.name = name;
+            this.requests = requests;
+            this.errors = errors;
+            this.shed = shed;
+            this.throughput = throughput;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings for one load test run, read from {@code loadtest.*} system properties so they can be
+ * passed straight on the Maven command line.
+ */
+public final class LoadTestConfig {
+    private final double rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int catalogSize;
+    private final Map<Endpoint, Integer> mix;
+    private final int maxConcurrency;
+    private final Path reportFile;
+    private final String baseUrl;
+    private final long seed;
+
+    private LoadTestConfig(double rate, int durationSeconds, int warmupSeconds, int catalogSize,
+                           Map<Endpoint, Integer> mix, int maxConcurrency, Path reportFile, String baseUrl, long seed) {
+        if (rate <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || catalogSize <= 0 || maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Rate, duration, catalog size and concurrency must be positive");
+        }
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.catalogSize = catalogSize;
+        this.mix = mix;
+        this.maxConcurrency = maxConcurrency;
+        this.reportFile = reportFile;
+        this.baseUrl = baseUrl;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads the run settings from system properties, falling back to a short smoke-sized run.
+     */
+    public static LoadTestConfig fromSystemProperties() {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "").trim();
+        return new LoadTestConfig(
+            Double.parseDouble(System.getProperty("loadtest.rate", "200")),
+            Integer.getInteger("loadtest.durationSeconds", 20),
+            Integer.getInteger("loadtest.warmupSeconds", 5),
+            Integer.getInteger("loadtest.catalogSize", 10_000),
+            parseMix(System.getProperty("loadtest.mix", "list:1,search:6,details:3")),
+            Integer.getInteger("loadtest.maxConcurrency", 64),
+            Paths.get(System.getProperty("loadtest.reportFile", "target/load-test-report.json")),
+            baseUrl.isEmpty() ? null : baseUrl,
+            Long.getLong("loadtest.seed", 42L));
+    }
+
+    /**
+     * Parses a request mix such as {@code list:1,search:6,details:3} into relative weights.
+     */
+    static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like endpoint:weight, got '" + part + "'");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The request mix needs at least one endpoint with a positive weight");
+        }
+        return weights;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public Map<Endpoint, Integer> getMix() {
+        return mix;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public Path getReportFile() {
+        return reportFile;
+    }
+
+    /**
+     * @return the address of an already running instance to drive, or {@code null} to boot one in-process
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,265 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import com.amazonaws.samples.qdevmovies.movies.MoviesApplication;
+import org.json.JSONObject;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load generator for the movie app, arrr!
+ * <p>
+ * Requests are sent on a fixed schedule at the configured arrival rate, whether or not earlier
+ * ones have finished, and each latency is measured from the moment the request was <em>due</em>
+ * rather than when it was actually sent. A slow server therefore shows up as queueing in the
+ * percentiles instead of quietly lowering the offered load (coordinated omission).
+ * <p>
+ * Unless a base URL is given, the harness boots the application in-process on a random port,
+ * backed by a synthetic catalog of the configured size.
+ */
+public final class LoadTestHarness {
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+    private static final long READY_TIMEOUT_MILLIS = 120_000;
+
+    private final LoadTestConfig config;
+
+    public LoadTestHarness(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        LoadTestReport report = new LoadTestHarness(config).run();
+        System.out.println(report.toText());
+        report.writeJson(config.getReportFile());
+    }
+
+    /**
+     * Runs the warm-up and the measured phase and summarizes the measured phase.
+     */
+    public LoadTestReport run() throws Exception {
+        if (config.getBaseUrl() != null) {
+            return drive(config.getBaseUrl());
+        }
+        Path catalogFile = Files.createTempFile("load-test-movies", ".json");
+        ConfigurableApplicationContext app = null;
+        try {
+            SyntheticCatalog.write(catalogFile, config.getCatalogSize(), config.getSeed());
+            app = new SpringApplicationBuilder(MoviesApplication.class)
+                .properties(
+                    "server.port=0",
+                    "movies.catalog.location=" + catalogFile.toUri(),
+                    "logging.level.com.amazonaws.samples.qdevmovies=WARN")
+                .run();
+            String port = app.getEnvironment().getProperty("local.server.port");
+            return drive("http://localhost:" + port);
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+            Files.deleteIfExists(catalogFile);
+        }
+    }
+
+    /**
+     * Waits for the instance to finish its own warm-up, so that does not compete with the load.
+     * Instances without a readiness endpoint are driven straight away.
+     */
+    private static void awaitReady(String baseUrl) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            int status = send(baseUrl + "/internal/ready");
+            if (status == 200 || status == 404) {
+                return;
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("The instance at " + baseUrl + " did not become ready");
+    }
+
+    private LoadTestReport drive(String baseUrl) throws InterruptedException {
+        awaitReady(baseUrl);
+        Random random = new Random(config.getSeed());
+        List<Endpoint> weighted = new ArrayList<>();
+        config.getMix().forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRate());
+        long warmupRequests = (long) (config.getRate() * config.getWarmupSeconds());
+        long measuredRequests = (long) (config.getRate() * config.getDurationSeconds());
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, measuredRequests);
+
+        Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : config.getMix().keySet()) {
+            recorders.put(endpoint, new LatencyRecorder(capacity));
+        }
+        LatencyRecorder overall = new LatencyRecorder(capacity);
+
+        ExecutorService workers = Executors.newFixedThreadPool(config.getMaxConcurrency());
+        long start = System.nanoTime();
+        try {
+            for (long i = 0; i < warmupRequests + measuredRequests; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Endpoint endpoint = weighted.get(random.nextInt(weighted.size()));
+                String url = baseUrl + endpoint.nextPath(random, config.getCatalogSize());
+                boolean measured = i >= warmupRequests;
+                workers.execute(() -> {
+                    int status = send(url);
+                    if (measured) {
+                        long latency = System.nanoTime() - intendedStart;
+                        recorders.get(endpoint).record(latency, status);
+                        overall.record(latency, status);
+                    }
+                });
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(READ_TIMEOUT_MILLIS * 2L, TimeUnit.MILLISECONDS);
+        }
+
+        // achieved throughput: everything measured, over the time it actually took to complete
+        long measuredStart = start + warmupRequests * intervalNanos;
+        double measuredSeconds = Math.max(config.getDurationSeconds(),
+            (System.nanoTime() - measuredStart) / (double) TimeUnit.SECONDS.toNanos(1));
+        List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+        recorders.forEach((endpoint, recorder) ->
+            summaries.add(recorder.summarize(endpoint.name().toLowerCase(Locale.ROOT), measuredSeconds)));
+        summaries.add(overall.summarize("all", measuredSeconds));
+        return new LoadTestReport(config, summaries);
+    }
+
+    /**
+     * @return the HTTP status, or -1 when the request failed without one
+     */
+    private static int send(String url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            int status = connection.getResponseCode();
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                drain(body);
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static void drain(InputStream body) throws IOException {
+        if (body == null) {
+            return;
+        }
+        byte[] buffer = new byte[8192];
+        while (body.read(buffer) != -1) {
+            // read the whole response so the timing covers the full transfer
+        }
+    }
+
+    /**
+     * The outcome of one run: the settings it used and the per-endpoint summaries.
+     */
+    public static final class LoadTestReport {
+        private final LoadTestConfig config;
+        private final List<LatencyRecorder.Summary> summaries;
+
+        LoadTestReport(LoadTestConfig config, List<LatencyRecorder.Summary> summaries) {
+            this.config = config;
+            this.summaries = summaries;
+        }
+
+        public long totalRequests() {
+            return summaries.get(summaries.size() - 1).requests;
+        }
+
+        public long totalErrors() {
+            return summaries.get(summaries.size() - 1).errors;
+        }
+
+        public long totalShed() {
+            return summaries.get(summaries.size() - 1).shed;
+        }
+
+        public String toText() {
+            StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+                "Load test: %.0f req/s for %ds (after %ds warm-up), %d synthetic movies%n",
+                config.getRate(), config.getDurationSeconds(), config.getWarmupSeconds(), config.getCatalogSize()));
+            text.append(String.format(Locale.ROOT, "%-8s %9s %7s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "served", "errors", "shed", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+            for (LatencyRecorder.Summary summary : summaries) {
+                text.append(String.format(Locale.ROOT, "%-8s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    summary.name, summary.requests, summary.errors, summary.shed, summary.throughput,
+                    millis(summary.p50Nanos), millis(summary.p99Nanos), millis(summary.p999Nanos),
+                    millis(summary.maxNanos)));
+            }
+            return text.toString();
+        }
+
+        public JSONObject toJson() {
+            JSONObject endpoints = new JSONObject();
+            for (LatencyRecorder.Summary summary : summaries) {
+                endpoints.put(summary.name, new JSONObject()
+                    .put("requests", summary.requests)
+                    .put("errors", summary.errors)
+                    .put("shed", summary.shed)
+                    .put("throughput", summary.throughput)
+                    .put("p50Millis", millis(summary.p50Nanos))
+                    .put("p99Millis", millis(summary.p99Nanos))
+                    .put("p999Millis", millis(summary.p999Nanos))
+                    .put("maxMillis", millis(summary.maxNanos)));
+            }
+            JSONObject settings = new JSONObject()
+                .put("rate", config.getRate())
+                .put("durationSeconds", config.getDurationSeconds())
+                .put("warmupSeconds", config.getWarmupSeconds())
+                .put("catalogSize", config.getCatalogSize())
+                .put("maxConcurrency", config.getMaxConcurrency())
+                .put("mix", new JSONObject(config.getMix()));
+            return new JSONObject().put("config", settings).put("endpoints", endpoints);
+        }
+
+        /**
+         * Writes the machine-readable report so runs from different builds can be compared.
+         */
+        public void writeJson(Path file) throws IOException {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, toJson().toString(2).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.amazonaws.samples.qdevmovies.loadtest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates a synthetic movie catalog of any size in the same JSON format as movies.json,
+ * so load and stress runs are not limited to the twelve movies that ship with the app.
+ */
+public final class SyntheticCatalog {
+    static final String[] TITLE_WORDS = {
+        "Prison", "Family", "Hero", "Urban", "Journey", "Dream", "Virtual", "Wise", "Quest", "Space",
+        "Factory", "Club", "Ocean", "Storm", "Harbour", "Treasure", "Island", "Night", "City", "River"
+    };
+    static final String[] GENRES = {
+        "Drama", "Crime/Drama", "Action/Crime", "Action/Sci-Fi", "Adventure/Fantasy", "Adventure/Sci-Fi",
+        "Drama/History", "Drama/Romance", "Drama/Thriller", "Comedy", "Comedy/Romance", "Horror/Thriller"
+    };
+    private static final String[] DESCRIPTION_WORDS = {
+        "a", "crew", "sails", "across", "the", "sea", "in", "search", "of", "lost", "gold", "while",
+        "storms", "rivals", "and", "old", "secrets", "test", "their", "loyalty"
+    };
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * Writes {@code size} movies with IDs 1..size to the given file. The same seed always
+     * produces the same catalog.
+     */
+    public static void write(Path file, int size, long seed) throws IOException {
+        Random random = new Random(seed);
+        JSONArray movies = new JSONArray();
+        for (int id = 1; id <= size; id++) {
+            StringBuilder description = new StringBuilder();
+            for (int i = 0, words = 20 + random.nextInt(40); i < words; i++) {
+                description.append(i == 0 ? "" : " ").append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)]);
+            }
+            movies.put(new JSONObject()
+                .put("id", id)
+                .put("movieName", "The " + pick(random, TITLE_WORDS) + " " + pick(random, TITLE_WORDS) + " " + id)
+                .put("director", "Director " + random.nextInt(Math.max(1, size / 5)))
+                .put("year", 1920 + random.nextInt(105))
+                .put("genre", pick(random, GENRES))
+                .put("description", description.toString())
+                .put("duration", 80 + random.nextInt(100))
+                .put("imdbRating", (2 + random.nextInt(9)) / 2.0));
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            movies.write(writer);
+        }
+    }
+
+    static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
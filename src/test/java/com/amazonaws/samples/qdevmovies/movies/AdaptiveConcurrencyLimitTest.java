@@ -0,0 +1,146 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for the latency-driven concurrency limit behind admission control.
+ */
+@DisplayName("AdaptiveConcurrencyLimit Tests")
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    @DisplayName("Should turn requests away once the limit be reached")
+    public void testRejectsAtLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire(), "A third request should be shed, arrr!");
+
+        limit.release(FAST);
+        assertTrue(limit.tryAcquire(), "A released slot should be usable again");
+        assertEquals(3, limit.stats().getAdmitted());
+        assertEquals(1, limit.stats().getRejected());
+        assertEquals(2, limit.stats().getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should shrink the limit when latency climbs, but not below the minimum")
+    public void testShrinksUnderRisingLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 5, 100);
+        int held = hold(limit, 19);
+        feed(limit, FAST, 50);
+        int healthyLimit = limit.getLimit();
+
+        feed(limit, SLOW, 3);
+        assertTrue(limit.getLimit() < healthyLimit, "Queueing should cut the limit, matey!");
+
+        releaseAll(limit, held);
+        feed(limit, SLOW * 10, 200);
+        assertEquals(5, limit.getLimit(), "The limit should stop at the minimum");
+    }
+
+    @Test
+    @DisplayName("Should grow the limit while latency stays steady and the traffic uses it")
+    public void testGrowsWhenHealthy() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 35);
+        hold(limit, 19);
+
+        feed(limit, FAST, 100);
+
+        assertEquals(35, limit.getLimit(), "Steady latency should let the limit grow to the maximum");
+    }
+
+    @Test
+    @DisplayName("Should not grow the limit when the traffic is not using it")
+    public void testDoesNotGrowWhenIdle() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 5, 30);
+
+        feed(limit, FAST, 100);
+
+        assertEquals(10, limit.getLimit(), "One request at a time says nothing about a bigger limit");
+    }
+
+    @Test
+    @DisplayName("Should take samples from many threads at once and still shrink under slow responses")
+    public void testConcurrentReleases() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 5, 100);
+        int held = hold(limit, 19);
+        feed(limit, FAST, 50);
+        releaseAll(limit, held);
+        int healthyLimit = limit.getLimit();
+
+        AtomicLong attempts = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 5_000; i++) {
+                    attempts.incrementAndGet();
+                    if (limit.tryAcquire()) {
+                        limit.release(SLOW);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        AdaptiveConcurrencyLimit.Stats stats = limit.stats();
+        assertEquals(0, stats.getInFlight(), "Every slot should be given back, matey");
+        assertEquals(attempts.get() + 50 + held, stats.getAdmitted() + stats.getRejected());
+        assertTrue(stats.getLimit() < healthyLimit, "Slow responses from every thread should cut the limit");
+        assertTrue(stats.getLimit() >= 5);
+    }
+
+    @Test
+    @DisplayName("Should reject nonsense bounds")
+    public void testInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(10, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(10, 20, 10));
+    }
+
+    private static int hold(AdaptiveConcurrencyLimit limit, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        return requests;
+    }
+
+    private static void releaseAll(AdaptiveConcurrencyLimit limit, int requests) {
+        for (int i = 0; i < requests; i++) {
+            limit.release(FAST);
+        }
+    }
+
+    private static void feed(AdaptiveConcurrencyLimit limit, long latencyNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            assertTrue(limit.tryAcquire(), "There should be a free slot for the sample request");
+            limit.release(latencyNanos);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for shedding excess requests per endpoint class.
+ */
+@DisplayName("AdmissionControlFilter Tests")
+public class AdmissionControlFilterTest {
+
+    private MovieProperties properties;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new MovieProperties();
+        MovieProperties.Admission.Budget search = properties.getAdmission().getSearch();
+        search.setInitialLimit(1);
+        search.setMinLimit(1);
+        search.setMaxLimit(1);
+        properties.getAdmission().setRetryAfterSeconds(3);
+    }
+
+    @Test
+    @DisplayName("Should shed searches over the limit with a 503 while lookups still get through")
+    public void testSearchStormLeavesLookupsAlone() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties);
+        AtomicReference<MockHttpServletResponse> secondSearch = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> lookup = new AtomicReference<>();
+
+        // while the first search is still running, a second search and a lookup arrive
+        FilterChain slowSearch = (request, response) -> {
+            secondSearch.set(run(filter, "GET", "/movies/search"));
+            lookup.set(run(filter, "GET", "/movies/1/details"));
+        };
+        MockHttpServletResponse firstSearch = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/movies/search"), firstSearch, slowSearch);
+
+        assertEquals(200, firstSearch.getStatus());
+        assertEquals(503, secondSearch.get().getStatus(), "The second search should be shed, arrr!");
+        assertEquals("3", secondSearch.get().getHeader("Retry-After"));
+        assertTrue(secondSearch.get().getContentAsString().contains("Avast!"));
+        assertEquals(200, lookup.get().getStatus(), "Lookups have their own budget, matey");
+
+        assertEquals(1, filter.getStats().get().get(EndpointClass.SEARCH).getRejected());
+        assertEquals(0, filter.getStats().get().get(EndpointClass.SEARCH).getInFlight(),
+            "Finished requests should give their slot back");
+        assertEquals(200, run(filter, "GET", "/movies/search").getStatus(), "The slot should be free again");
+    }
+
+    @Test
+    @DisplayName("Should let warm-up requests past the limit without counting them")
+    public void testWarmupBypassesAdmission() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties);
+        AtomicReference<MockHttpServletResponse> warmup = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> forged = new AtomicReference<>();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/movies/search"), new MockHttpServletResponse(),
+            (request, response) -> {
+                MockHttpServletRequest warmupSearch = new MockHttpServletRequest("GET", "/movies/search");
+                warmupSearch.addHeader(WarmupRunner.WARMUP_HEADER, WarmupRunner.WARMUP_TOKEN);
+                warmup.set(new MockHttpServletResponse());
+                filter.doFilter(warmupSearch, warmup.get(), (req, res) -> { });
+
+                MockHttpServletRequest forgedSearch = new MockHttpServletRequest("GET", "/movies/search");
+                forgedSearch.addHeader(WarmupRunner.WARMUP_HEADER, "let-me-in");
+                forged.set(new MockHttpServletResponse());
+                filter.doFilter(forgedSearch, forged.get(), (req, res) -> { });
+            });
+
+        assertEquals(200, warmup.get().getStatus(), "Warm-up requests should not queue for a slot, arrr!");
+        assertEquals(503, forged.get().getStatus(), "Only the instance's own token marks a warm-up request");
+        AdaptiveConcurrencyLimit.Stats stats = filter.getStats().get().get(EndpointClass.SEARCH);
+        assertEquals(1, stats.getAdmitted(), "Warm-up requests should not count as admitted");
+        assertEquals(1, stats.getRejected());
+    }
+
+    @Test
+    @DisplayName("Should answer shed API requests with a JSON error")
+    public void testApiRejectionIsJson() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties);
+        AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/movies/batch-search"), new MockHttpServletResponse(),
+            (request, response) -> rejected.set(run(filter, "POST", "/api/movies/batch-search")));
+
+        assertEquals(503, rejected.get().getStatus());
+        assertTrue(rejected.get().getContentType().startsWith("application/json"));
+        assertTrue(rejected.get().getContentAsString().startsWith("{\"error\":"));
+    }
+
+    @Test
+    @DisplayName("Should leave other endpoints and disabled admission control alone")
+    public void testUncontrolledRequestsPass() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties);
+        assertEquals(200, run(filter, "GET", "/internal/search-cache/stats").getStatus());
+        assertEquals(0, filter.getStats().get().get(EndpointClass.SEARCH).getAdmitted());
+
+        properties.getAdmission().setEnabled(false);
+        AdmissionControlFilter disabled = new AdmissionControlFilter(properties);
+        AtomicReference<MockHttpServletResponse> inner = new AtomicReference<>();
+        disabled.doFilter(new MockHttpServletRequest("GET", "/movies/search"), new MockHttpServletResponse(),
+            (request, response) -> inner.set(run(disabled, "GET", "/movies/search")));
+
+        assertEquals(200, inner.get().getStatus(), "Nothing should be shed when disabled");
+        assertFalse(disabled.getStats().isPresent());
+    }
+
+    @Test
+    @DisplayName("Should classify requests by method and path")
+    public void testClassify() {
+        assertEquals(EndpointClass.SEARCH, EndpointClass.classify("GET", "/movies/search"));
+        assertEquals(EndpointClass.SEARCH, EndpointClass.classify("POST", "/api/movies/batch-search"));
+        assertEquals(EndpointClass.LISTING, EndpointClass.classify("GET", "/movies"));
+        assertEquals(EndpointClass.LOOKUP, EndpointClass.classify("GET", "/movies/7/details"));
+        assertEquals(EndpointClass.LOOKUP, EndpointClass.classify("POST", "/api/movies/batch"));
+        assertEquals(EndpointClass.SEARCH, EndpointClass.classify("GET", "/movies/search/"),
+            "A trailing slash reaches the same search, arrr!");
+        assertEquals(EndpointClass.LISTING, EndpointClass.classify("GET", "/movies/"));
+        assertEquals(EndpointClass.LOOKUP, EndpointClass.classify("GET", "/movies/7/details/"));
+        assertEquals(EndpointClass.SEARCH, EndpointClass.classify("POST", "/api/movies/batch-search/"));
+        assertEquals(null, EndpointClass.classify("GET", "/"));
+        assertEquals(null, EndpointClass.classify("GET", "/api/movies/export"));
+        assertEquals(null, EndpointClass.classify("GET", "/css/movies.css"));
+    }
+
+    private static MockHttpServletResponse run(AdmissionControlFilter filter, String method, String path) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(new MockHttpServletRequest(method, path), response, (request, ignored) -> { });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,116 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for working out what changed on a catalog reload and replaying it to late comers.
+ */
+@DisplayName("CatalogChangeLog Tests")
+public class CatalogChangeLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static JSONObject movieJson(long id, String name, double rating) {
+        return new JSONObject()
+            .put("id", id)
+            .put("movieName", name)
+            .put("director", "Captain Director")
+            .put("year", 1999)
+            .put("genre", "Adventure")
+            .put("description", "A tale of the high seas")
+            .put("duration", 100)
+            .put("imdbRating", rating);
+    }
+
+    private static void writeCatalog(Path file, JSONObject... movies) throws Exception {
+        Files.write(file, new JSONArray(Arrays.asList(movies)).toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CatalogChange change(long version) {
+        return new CatalogChange(version, version - 1, "2026-01-01T00:00:00Z", 1,
+            Collections.singletonList(version), new ArrayList<>(), new ArrayList<>());
+    }
+
+    private static List<Long> versions(List<CatalogChange> changes) {
+        return changes.stream().map(CatalogChange::getVersion).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Should record the movies added, updated and removed by a reload")
+    public void testReloadRecordsChanges() throws Exception {
+        Path catalogFile = directory.resolve("movies.json");
+        writeCatalog(catalogFile, movieJson(1, "Kept", 4.0), movieJson(2, "Retold", 3.0), movieJson(3, "Sunk", 2.0));
+        MovieProperties properties = new MovieProperties();
+        properties.getCatalog().setLocation("file:" + catalogFile);
+        MovieService movieService = new MovieService(properties);
+        List<CatalogChange> heard = new ArrayList<>();
+        movieService.getCatalogChanges().addListener(heard::add);
+
+        writeCatalog(catalogFile, movieJson(1, "Kept", 4.0), movieJson(2, "Retold", 3.5), movieJson(4, "Found", 5.0));
+        movieService.reloadCatalog();
+
+        assertEquals(1, heard.size(), "Listeners should hear about the reload, arrr!");
+        CatalogChange change = heard.get(0);
+        assertEquals(2, change.getVersion());
+        assertEquals(1, change.getPreviousVersion());
+        assertEquals(3, change.getMovieCount());
+        assertEquals(Collections.singletonList(4L), change.getAdded());
+        assertEquals(Collections.singletonList(2L), change.getUpdated(), "A changed rating makes an update");
+        assertEquals(Collections.singletonList(3L), change.getRemoved());
+
+        movieService.reloadCatalog();
+        assertEquals(2, heard.size());
+        assertFalse(heard.get(1).hasMovieChanges(), "Reloading the same chest changes no movies");
+        assertEquals(Arrays.asList(2L, 3L), versions(movieService.getCatalogChanges().since(1).get()));
+    }
+
+    @Test
+    @DisplayName("Should replay only the changes after the given version")
+    public void testSinceReplaysMissedChanges() {
+        CatalogChangeLog log = new CatalogChangeLog(8, 1);
+        assertEquals(Optional.of(Collections.emptyList()), log.since(1), "Nothing be missed before the first change");
+        for (long version = 2; version <= 5; version++) {
+            log.append(change(version));
+        }
+
+        assertEquals(5, log.getLatestVersion());
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L), versions(log.since(1).get()));
+        assertEquals(Arrays.asList(4L, 5L), versions(log.since(3).get()));
+        assertTrue(log.since(5).get().isEmpty(), "An up-to-date client has nothing to catch up on");
+        assertFalse(log.since(6).isPresent(), "A version never served cannot be resumed from");
+    }
+
+    @Test
+    @DisplayName("Should ask for a fresh fetch once the missed changes are no longer kept")
+    public void testOldVersionsCannotResume() {
+        CatalogChangeLog log = new CatalogChangeLog(3, 1);
+        for (long version = 2; version <= 6; version++) {
+            log.append(change(version));
+        }
+
+        assertEquals(Arrays.asList(4L, 5L, 6L), versions(log.since(3).get()), "The three newest changes be kept");
+        assertFalse(log.since(2).isPresent(), "The change to version 3 was overwritten, matey");
+        assertFalse(log.since(0).isPresent());
+        assertThrows(IllegalStateException.class, () -> log.append(change(8)), "Changes must not skip a version");
+    }
+}
@@ -0,0 +1,267 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for pushing catalog changes to subscribers that read at their own pace.
+ */
+@DisplayName("CatalogChangeStream Tests")
+public class CatalogChangeStreamTest {
+    private final List<CatalogChangeStream> streams = new ArrayList<>();
+    private final List<FakeEmitter> emitters = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        for (FakeEmitter emitter : emitters) {
+            emitter.released.countDown();
+        }
+        for (CatalogChangeStream stream : streams) {
+            stream.shutdown();
+        }
+    }
+
+    private static CatalogChange change(long version) {
+        return new CatalogChange(version, version - 1, "2026-01-01T00:00:00Z", 1,
+            Collections.singletonList(version), new ArrayList<>(), new ArrayList<>());
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Hands out the given emitters in turn instead of ones writing to a real connection.
+     */
+    private CatalogChangeStream stream(MovieService movieService, MovieProperties properties, SseEmitter... emitters) {
+        List<SseEmitter> handedOut = new ArrayList<>(Arrays.asList(emitters));
+        CatalogChangeStream stream = new CatalogChangeStream(movieService, properties) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                return handedOut.remove(0);
+            }
+        };
+        streams.add(stream);
+        return stream;
+    }
+
+    private FakeEmitter emitter(boolean stuck) {
+        FakeEmitter emitter = new FakeEmitter(stuck);
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    /**
+     * Records the events sent to it, or, when stuck, blocks on every send until released, as a write to a
+     * client that stopped reading does until the container's write timeout fails it.
+     */
+    private static final class FakeEmitter extends SseEmitter {
+        private final boolean stuck;
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final Set<String> senderThreads = ConcurrentHashMap.newKeySet();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private FakeEmitter(boolean stuck) {
+            this.stuck = stuck;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            senderThreads.add(Thread.currentThread().getName());
+            sending.countDown();
+            if (stuck) {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Client went away");
+            }
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            events.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep sending to fast subscribers while a slow one is dropped on overflow")
+    public void testSlowSubscriberDoesNotHoldUpOthers() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getChangeStream().setReplayCapacity(2);
+        properties.getChangeStream().setSendQueueCapacity(4);
+        properties.getChangeStream().setHeartbeatSeconds(0);
+        MovieService movieService = new MovieService(properties);
+        FakeEmitter slow = emitter(true);
+        FakeEmitter fast = emitter(false);
+        CatalogChangeStream stream = stream(movieService, properties, slow, fast);
+
+        stream.subscribe(null);
+        stream.subscribe(null);
+        await(() -> fast.events.size() == 1, "The fast subscriber should get the catalog event, arrr!");
+        for (long version = 2; version <= 11; version++) {
+            movieService.getCatalogChanges().append(change(version));
+            int received = (int) version;
+            await(() -> fast.events.size() == received, "The fast subscriber should get every change despite the slow one");
+        }
+
+        assertTrue(fast.events.get(0).contains("event:catalog\nid:" + stream.eventId(1) + "\n"),
+            "First comes the current version");
+        assertTrue(fast.events.get(10).contains("event:change\nid:" + stream.eventId(11) + "\n"),
+            "Changes come in version order, matey");
+        assertEquals(1, stream.getSubscriberCount(), "Only the fast subscriber should be left aboard");
+        assertEquals(1, slow.completed.getCount(), "Completing waits for the stuck send to fail");
+        slow.released.countDown();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS), "The slow subscriber's stream should be closed");
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber whose send is stuck past the send timeout")
+    public void testStuckSendIsDropped() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getChangeStream().setHeartbeatSeconds(1);
+        properties.getChangeStream().setSendTimeoutMillis(100);
+        MovieService movieService = new MovieService(properties);
+        FakeEmitter stuck = emitter(true);
+        FakeEmitter idle = emitter(false);
+        CatalogChangeStream stream = stream(movieService, properties, stuck, idle);
+
+        stream.subscribe(null);
+        stream.subscribe(null);
+
+        await(() -> stream.getSubscriberCount() == 1, "A send stuck past the timeout should drop the subscriber");
+        await(() -> idle.events.size() >= 2, "The idle subscriber should keep getting heartbeats");
+        assertTrue(idle.events.get(1).contains(":heartbeat"));
+        stuck.released.countDown();
+        assertTrue(stuck.completed.await(5, TimeUnit.SECONDS), "The stuck stream should be closed once the send fails");
+        assertEquals(1, idle.completed.getCount(), "The idle subscriber should not be dropped, arrr!");
+    }
+
+    @Test
+    @DisplayName("Should never run more sends at once than there are sender threads")
+    public void testSenderThreadsAreBounded() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getChangeStream().setHeartbeatSeconds(0);
+        properties.getChangeStream().setSenderThreads(2);
+        MovieService movieService = new MovieService(properties);
+        List<FakeEmitter> stuck = Arrays.asList(emitter(true), emitter(true), emitter(true), emitter(true));
+        CatalogChangeStream stream = stream(movieService, properties, stuck.toArray(new SseEmitter[0]));
+        for (int i = 0; i < stuck.size(); i++) {
+            stream.subscribe(null);
+        }
+
+        await(() -> stuck.stream().filter(emitter -> emitter.sending.getCount() == 0).count() == 2,
+            "Two subscribers should be sent to");
+        Thread.sleep(200);
+        assertEquals(2, stuck.stream().filter(emitter -> emitter.sending.getCount() == 0).count(),
+            "The others should wait for a sender thread rather than get their own, arrr!");
+
+        Set<String> senderThreads = ConcurrentHashMap.newKeySet();
+        for (FakeEmitter emitter : stuck) {
+            emitter.released.countDown();
+        }
+        for (FakeEmitter emitter : stuck) {
+            assertTrue(emitter.completed.await(5, TimeUnit.SECONDS), "Every stream should be closed once its send fails");
+            senderThreads.addAll(emitter.senderThreads);
+        }
+        assertEquals(2, senderThreads.size(), "Only two sender threads should ever run, matey");
+        assertEquals(0, stream.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Should neither listen to the change log nor take subscribers when disabled")
+    public void testDisabledStreamStaysIdle() {
+        MovieProperties properties = new MovieProperties();
+        properties.getChangeStream().setEnabled(false);
+        List<Consumer<CatalogChange>> listeners = new CopyOnWriteArrayList<>();
+        CatalogChangeLog changeLog = new CatalogChangeLog(4, 1) {
+            @Override
+            public void addListener(Consumer<CatalogChange> listener) {
+                listeners.add(listener);
+                super.addListener(listener);
+            }
+        };
+        MovieService movieService = new MovieService(properties) {
+            @Override
+            public CatalogChangeLog getCatalogChanges() {
+                return changeLog;
+            }
+        };
+        CatalogChangeStream stream = stream(movieService, properties, emitter(false));
+
+        assertTrue(listeners.isEmpty(), "A disabled stream should not hear about reloads, arrr!");
+        assertFalse(stream.subscribe(null).isPresent());
+        assertDoesNotThrow(() -> changeLog.append(change(2)));
+    }
+
+    @Test
+    @DisplayName("Should turn subscribers away and let reloads go on after shutdown")
+    public void testPublishAfterShutdown() {
+        MovieProperties properties = new MovieProperties();
+        MovieService movieService = new MovieService(properties);
+        CatalogChangeStream stream = stream(movieService, properties, emitter(false));
+
+        stream.shutdown();
+
+        assertFalse(stream.subscribe(null).isPresent(), "Nobody should be taken aboard after shutdown");
+        assertDoesNotThrow(() -> movieService.getCatalogChanges().append(change(2)));
+        assertEquals(0, stream.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Should only catch up subscribers reconnecting with an event ID of this epoch")
+    public void testReconnectFromAnotherEpochResets() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getChangeStream().setHeartbeatSeconds(0);
+        MovieService movieService = new MovieService(properties);
+        FakeEmitter resumed = emitter(false);
+        FakeEmitter restarted = emitter(false);
+        FakeEmitter bare = emitter(false);
+        CatalogChangeStream stream = stream(movieService, properties, resumed, restarted, bare);
+        movieService.getCatalogChanges().append(change(2));
+        movieService.getCatalogChanges().append(change(3));
+        String otherEpoch = stream.eventId(2).startsWith("0:") ? "1:2" : "0:2";
+
+        stream.subscribe(stream.eventId(2));
+        stream.subscribe(otherEpoch);
+        stream.subscribe("2");
+
+        await(() -> resumed.events.size() == 1 && restarted.events.size() == 1 && bare.events.size() == 1,
+            "Every subscriber should hear back, arrr!");
+        assertTrue(resumed.events.get(0).contains("event:change\nid:" + stream.eventId(3) + "\n"),
+            "A subscriber of this epoch should get the change it missed");
+        assertTrue(restarted.events.get(0).contains("event:reset\nid:" + stream.eventId(3) + "\n"),
+            "Version 2 of another epoch is not this catalog's version 2, matey");
+        assertTrue(bare.events.get(0).contains("event:reset\n"), "A bare version cannot be trusted either");
+    }
+}
@@ -0,0 +1,62 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for serving movie treasures as CBOR from the per-movie encoding cache.
+ */
+@DisplayName("CborMovieEncoder Tests")
+public class CborMovieEncoderTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final CBORMapper cborMapper = new CBORMapper();
+    private MovieService movieService;
+    private CborMovieEncoder encoder;
+
+    @BeforeEach
+    public void setUp() {
+        movieService = new MovieService();
+        encoder = new CborMovieEncoder(new Jackson2ObjectMapperBuilder(), movieService, new MovieProperties());
+    }
+
+    @Test
+    @DisplayName("Should encode the same movies as the JSON response, reusing cached bytes")
+    public void testEncodeMoviesMatchesJson() throws Exception {
+        List<Movie> movies = movieService.getAllMovies();
+
+        byte[] first = encoder.encodeMovies(movies);
+        byte[] second = encoder.encodeMovies(movies);
+
+        assertEquals(jsonMapper.readTree(jsonMapper.writeValueAsString(movies)), cborMapper.readTree(first),
+            "CBOR should carry exactly what the JSON does, matey!");
+        assertArrayEquals(first, second);
+        assertEquals(movies.size(), encoder.getCachedMovieCount(), "Every movie should be encoded once");
+        assertTrue(first.length < jsonMapper.writeValueAsBytes(movies).length, "CBOR should be more compact than JSON");
+    }
+
+    @Test
+    @DisplayName("Should encode batch search results with the same fields as JSON")
+    public void testEncodeSearchResultsMatchesJson() throws Exception {
+        List<Movie> dramas = movieService.searchMovieTreasures(null, null, "drama");
+        List<MovieSearchResult> results = Arrays.asList(
+            new MovieSearchResult(new MovieSearchRequest(null, null, "drama"), dramas, movieService.getFacetCounts(dramas)),
+            new MovieSearchResult(new MovieSearchRequest("zzz", null, null), movieService.getAllMovies().subList(0, 0),
+                movieService.getFacetCounts(movieService.getAllMovies().subList(0, 0))));
+
+        byte[] encoded = encoder.encodeSearchResults(results);
+
+        assertEquals(jsonMapper.readTree(jsonMapper.writeValueAsString(results)), cborMapper.readTree(encoded));
+    }
+}
@@ -0,0 +1,224 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.json.JSONArray;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for keeping movie descriptions on disk and reading them on demand.
+ */
+@DisplayName("DescriptionStore Tests")
+public class DescriptionStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private MovieProperties.Descriptions settings(DescriptionStore.ReadMode readMode) {
+        MovieProperties properties = new MovieProperties();
+        MovieProperties.Descriptions descriptions = properties.getDescriptions();
+        descriptions.setStorage(MovieProperties.Descriptions.Storage.DISK);
+        descriptions.setReadMode(readMode);
+        descriptions.setDirectory(directory.toString());
+        descriptions.setCacheEntries(4);
+        return descriptions;
+    }
+
+    private static List<Movie> movies() {
+        return Arrays.asList(
+            new Movie(1L, "Ça Va", "Director", 2000, "Drama", "Une histoire de pirates ☠ à Montréal", 100, 4.0),
+            new Movie(2L, "Empty", "Director", 2001, "Drama", "", 100, 3.0),
+            new Movie(3L, "Plain", "Director", 2002, "Comedy", "A plain tale of the sea", 90, 3.5));
+    }
+
+    @Test
+    @DisplayName("Should read the same descriptions back with positional reads")
+    public void testPositionalReads() throws Exception {
+        assertRoundTrip(DescriptionStore.ReadMode.POSITIONAL);
+    }
+
+    @Test
+    @DisplayName("Should read the same descriptions back from a memory mapping")
+    public void testMappedReads() throws Exception {
+        assertRoundTrip(DescriptionStore.ReadMode.MMAP);
+    }
+
+    private void assertRoundTrip(DescriptionStore.ReadMode readMode) throws Exception {
+        List<Movie> original = movies();
+        DescriptionStore.Loaded loaded = DescriptionStore.store(original, settings(readMode));
+        try {
+            assertEquals(original.size(), loaded.movies.size());
+            for (int i = 0; i < original.size(); i++) {
+                Movie movie = loaded.movies.get(i);
+                assertEquals(original.get(i).getDescription(), movie.getDescription(),
+                    "Descriptions should survive the trip to disk, arrr!");
+                assertEquals(original.get(i).getMovieName(), movie.getMovieName());
+                assertEquals(original.get(i).getIcon(), movie.getIcon());
+            }
+            assertTrue(Files.exists(loaded.store.getFile()));
+        } finally {
+            loaded.store.close();
+        }
+        assertFalse(Files.exists(loaded.store.getFile()), "Closing should clean up the description file");
+    }
+
+    @Test
+    @DisplayName("Should keep reading descriptions after a reader thread was interrupted")
+    public void testInterruptedReaderDoesNotBreakOthers() throws Exception {
+        MovieProperties.Descriptions settings = settings(DescriptionStore.ReadMode.POSITIONAL);
+        settings.setCacheEntries(0);
+        DescriptionStore.Loaded loaded = DescriptionStore.store(movies(), settings);
+        try {
+            AtomicReference<Throwable> interruptedRead = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                Thread.currentThread().interrupt();
+                try {
+                    loaded.movies.get(0).getDescription();
+                } catch (Throwable e) {
+                    interruptedRead.set(e);
+                }
+            });
+            reader.start();
+            reader.join();
+
+            assertTrue(interruptedRead.get() instanceof MovieDataLoadException,
+                "The interrupted read itself should fail, arrr!");
+            assertEquals("A plain tale of the sea", loaded.movies.get(2).getDescription(),
+                "Other threads should still read descriptions after the interrupt, matey");
+            assertEquals(movies().get(0).getDescription(), loaded.movies.get(0).getDescription());
+        } finally {
+            loaded.store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve hot descriptions from the cache")
+    public void testHotDescriptionsAreCached() throws Exception {
+        DescriptionStore.Loaded loaded = DescriptionStore.store(movies(), settings(DescriptionStore.ReadMode.POSITIONAL));
+        try {
+            Movie movie = loaded.movies.get(2);
+            movie.getDescription();
+            movie.getDescription();
+            movie.getDescription();
+
+            assertEquals(1, loaded.store.cacheStats().getMisses());
+            assertEquals(2, loaded.store.cacheStats().getHits(), "Repeat reads should not touch the disk, matey");
+        } finally {
+            loaded.store.close();
+        }
+    }
+
+    private MovieService diskService(int cacheEntries) throws IOException {
+        Path catalogFile = directory.resolve("movies.json");
+        try (InputStream catalog = getClass().getResourceAsStream("/movies.json")) {
+            Files.copy(catalog, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        MovieProperties properties = new MovieProperties();
+        properties.getCatalog().setLocation("file:" + catalogFile);
+        properties.getDescriptions().setStorage(MovieProperties.Descriptions.Storage.DISK);
+        properties.getDescriptions().setDirectory(directory.toString());
+        properties.getDescriptions().setCacheEntries(cacheEntries);
+        return new MovieService(properties);
+    }
+
+    private long descriptionFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("movie-descriptions-")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep a movie's description readable however many reloads ago its catalog was")
+    public void testOldMoviesStayReadable() throws Exception {
+        // No cache, so the description really comes from the old file
+        MovieService service = diskService(0);
+        try {
+            Movie held = service.getMovieById(1L).get();
+            String description = new MovieService().getMovieById(1L).get().getDescription();
+            for (int i = 0; i < 3; i++) {
+                service.reloadCatalog();
+            }
+
+            assertEquals(description, held.getDescription(), "A long export should still read its movies, arrr!");
+            assertEquals(4, descriptionFiles(), "Every catalog still held keeps its file");
+        } finally {
+            service.shutdown();
+        }
+        assertEquals(0, descriptionFiles(), "Shutting down should clean up every file, matey");
+    }
+
+    @Test
+    @DisplayName("Should delete the description files of catalogs nobody holds any more")
+    public void testUnreachableStoresAreClosed() throws Exception {
+        MovieService service = diskService(0);
+        try {
+            for (int attempt = 0; attempt < 50 && descriptionFiles() > 2; attempt++) {
+                System.gc();
+                Thread.sleep(20);
+                service.reloadCatalog();
+            }
+            // The file retired by the latest reload is only looked at by the next one
+            assertTrue(descriptionFiles() <= 2, "Old description files should not pile up, arrr!");
+            assertEquals(service.getAllMovies().get(0).getDescription(),
+                new MovieService().getAllMovies().get(0).getDescription());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should spot changed descriptions on reload without reading them from disk")
+    public void testReloadComparesDescriptionsWithoutReading() throws Exception {
+        MovieService service = diskService(16);
+        try {
+            Path catalogFile = directory.resolve("movies.json");
+            JSONArray movies = new JSONArray(new String(Files.readAllBytes(catalogFile), StandardCharsets.UTF_8));
+            movies.getJSONObject(1).put("description", "A brand new tale of the sea");
+            Files.write(catalogFile, movies.toString().getBytes(StandardCharsets.UTF_8));
+
+            service.reloadCatalog();
+
+            CatalogChange change = service.getCatalogChanges().since(1).get().get(0);
+            assertEquals(Arrays.asList(movies.getJSONObject(1).getLong("id")), change.getUpdated(),
+                "Only the movie with the new description should be updated");
+            assertEquals(0, service.getDescriptionCacheStats().get().getMisses(),
+                "Comparing the catalogs should not read a single description, matey");
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve the catalog with descriptions on disk")
+    public void testServiceWithDiskDescriptions() {
+        MovieProperties properties = new MovieProperties();
+        properties.getDescriptions().setStorage(MovieProperties.Descriptions.Storage.DISK);
+        properties.getDescriptions().setDirectory(directory.toString());
+        MovieService heapService = new MovieService();
+        MovieService diskService = new MovieService(properties);
+        try {
+            for (Movie movie : heapService.getAllMovies()) {
+                assertEquals(movie.getDescription(), diskService.getMovieById(movie.getId()).get().getDescription());
+            }
+            assertTrue(diskService.getDescriptionCacheStats().isPresent());
+            assertFalse(heapService.getDescriptionCacheStats().isPresent());
+        } finally {
+            diskService.shutdown();
+        }
+    }
+}
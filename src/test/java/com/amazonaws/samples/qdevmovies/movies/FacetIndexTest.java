@@ -0,0 +1,72 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for counting facets of search results with the precomputed bitmaps.
+ */
+@DisplayName("FacetIndex Tests")
+public class FacetIndexTest {
+
+    @Test
+    @DisplayName("Should count the facets of the whole treasure chest")
+    public void testCatalogFacets() {
+        MovieService movieService = new MovieService();
+        FacetCounts facets = movieService.getFacetCounts(movieService.getAllMovies());
+
+        assertEquals(Integer.valueOf(7), facets.getGenre().get("Drama"), "Seven treasures be dramas, arrr!");
+        assertEquals("Drama", facets.getGenre().keySet().iterator().next(), "The most common genre should come first");
+        assertEquals(12, sum(facets.getDecade()), "Every movie falls in exactly one decade");
+        assertEquals(12, sum(facets.getRatingBand()));
+        assertEquals(12, sum(facets.getDurationBand()));
+        assertEquals(Arrays.asList("1970s", "1990s", "2000s", "2010s"), new ArrayList<>(facets.getDecade().keySet()),
+            "Decades should be oldest first");
+    }
+
+    @Test
+    @DisplayName("Should give the same counts from bitmaps as from a scan, leaving out empty values")
+    public void testBitmapsMatchScan() {
+        Random random = new Random(11);
+        String[] genres = {"Drama", "Crime/Drama", "Action/Sci-Fi", "Comedy", "Drama/Romance"};
+        List<Movie> movies = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            movies.add(new Movie(id, "Movie " + id, "Director", 1930 + random.nextInt(90),
+                genres[random.nextInt(genres.length)], "", 60 + random.nextInt(120), (1 + random.nextInt(10)) / 2.0));
+        }
+        MovieCatalog catalog = new MovieCatalog(1, movies, 0);
+
+        for (int trial = 0; trial < 20; trial++) {
+            List<Movie> subset = new ArrayList<>();
+            for (Movie movie : catalog.getMovies()) {
+                if (random.nextInt(5) == 0) {
+                    subset.add(movie);
+                }
+            }
+            FacetCounts fromBitmaps = catalog.countFacets(subset);
+            FacetCounts fromScan = FacetCounts.scan(subset);
+            for (Facet facet : Facet.values()) {
+                assertEquals(new ArrayList<>(fromScan.get(facet).entrySet()), new ArrayList<>(fromBitmaps.get(facet).entrySet()),
+                    "Bitmap and scan counts should agree for " + facet);
+            }
+        }
+
+        FacetCounts nothing = catalog.countFacets(new ArrayList<>());
+        assertTrue(nothing.getGenre().isEmpty(), "An empty result has no facet values, matey");
+        assertFalse(catalog.countFacets(catalog.getMovies()).getRatingBand().containsValue(0));
+    }
+
+    private static int sum(Map<String, Integer> counts) {
+        return counts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
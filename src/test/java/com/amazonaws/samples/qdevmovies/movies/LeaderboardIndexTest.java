@@ -0,0 +1,119 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for the materialized top-rated leaderboards per genre and decade.
+ */
+@DisplayName("LeaderboardIndex Tests")
+public class LeaderboardIndexTest {
+    private static final String[] GENRES = {"Drama", "Crime/Drama", "Action/Sci-Fi", "Comedy", "Drama/Romance"};
+
+    private static Movie randomMovie(Random random, long id) {
+        return new Movie(id, "Movie " + id, "Director", 1930 + random.nextInt(90), GENRES[random.nextInt(GENRES.length)],
+            "", 60 + random.nextInt(120), (1 + random.nextInt(10)) / 2.0);
+    }
+
+    /**
+     * Ranks every board the slow way, by sorting all of its movies.
+     */
+    private static Map<String, List<Long>> sortedBoards(List<Movie> movies, Facet facet, int topK) {
+        Map<String, List<Movie>> members = new TreeMap<>();
+        for (Movie movie : movies) {
+            for (String value : facet.valuesOf(movie)) {
+                members.computeIfAbsent(value, key -> new ArrayList<>()).add(movie);
+            }
+        }
+        Map<String, List<Long>> boards = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Movie>> board : members.entrySet()) {
+            boards.put(board.getKey(), board.getValue().stream()
+                .sorted(Comparator.comparingDouble(Movie::getImdbRating).reversed().thenComparingLong(Movie::getId))
+                .limit(topK)
+                .map(Movie::getId)
+                .collect(Collectors.toList()));
+        }
+        return boards;
+    }
+
+    private static Map<String, List<Long>> ids(Map<String, List<Movie>> boards) {
+        Map<String, List<Long>> ids = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Movie>> board : boards.entrySet()) {
+            ids.put(board.getKey(), board.getValue().stream().map(Movie::getId).collect(Collectors.toList()));
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should rank the treasure chest by rating within each genre token and decade")
+    public void testCatalogLeaderboards() {
+        Leaderboards leaderboards = new MovieService().getLeaderboards();
+
+        List<Movie> drama = leaderboards.forGenre("drama");
+        assertEquals(7, drama.size(), "Every drama should be on the Drama board, arrr!");
+        for (int i = 1; i < drama.size(); i++) {
+            assertTrue(drama.get(i - 1).getImdbRating() >= drama.get(i).getImdbRating(), "Best should come first");
+        }
+        assertEquals(Arrays.asList("1970s", "1990s", "2000s", "2010s"), new ArrayList<>(leaderboards.getDecade().keySet()));
+        assertTrue(leaderboards.forDecade("1880s").isEmpty());
+        assertEquals(1, leaderboards.getCatalogVersion());
+    }
+
+    @Test
+    @DisplayName("Should keep the same leaderboards through incremental changes as a full rebuild")
+    public void testIncrementalUpdatesMatchRebuild() {
+        Random random = new Random(44);
+        List<Movie> movies = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            movies.add(randomMovie(random, id));
+        }
+        MovieCatalog catalog = new MovieCatalog(1, movies, 0);
+        LeaderboardIndex index = new LeaderboardIndex(catalog.getMovies(), 5);
+        long nextId = 301;
+
+        for (int version = 2; version <= 30; version++) {
+            List<Movie> changed = new ArrayList<>();
+            for (Movie movie : catalog.getMovies()) {
+                int roll = random.nextInt(20);
+                if (roll == 0) {
+                    continue;
+                }
+                changed.add(roll == 1 ? randomMovie(random, movie.getId()) : new Movie(movie.getId(),
+                    movie.getMovieName(), movie.getDirector(), movie.getYear(), movie.getGenre(),
+                    movie.getDescription(), movie.getDuration(), movie.getImdbRating()));
+            }
+            for (int i = random.nextInt(10); i > 0; i--) {
+                changed.add(randomMovie(random, nextId++));
+            }
+            MovieCatalog reloaded = new MovieCatalog(version, changed, 0);
+            index.apply(catalog, reloaded, CatalogChange.between(catalog, reloaded, "now"));
+            catalog = reloaded;
+
+            Leaderboards leaderboards = index.publish(catalog);
+            assertEquals(sortedBoards(catalog.getMovies(), Facet.GENRE, 5), ids(leaderboards.getGenre()),
+                "Genre boards should match a full sort at version " + version);
+            assertEquals(sortedBoards(catalog.getMovies(), Facet.DECADE, 5), ids(leaderboards.getDecade()),
+                "Decade boards should match a full sort at version " + version);
+            for (List<Movie> board : leaderboards.getGenre().values()) {
+                for (Movie movie : board) {
+                    assertSame(catalog.findById(movie.getId()).get(), movie,
+                        "Boards should hand out the current catalog's own movies, matey");
+                }
+            }
+        }
+    }
+}
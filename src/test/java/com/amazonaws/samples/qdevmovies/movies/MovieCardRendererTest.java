@@ -0,0 +1,120 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for rendering movie cards once and reusing them across requests.
+ */
+@DisplayName("MovieCardRenderer Tests")
+public class MovieCardRendererTest {
+
+    private final AtomicLong catalogVersion = new AtomicLong(1);
+    private final AtomicInteger renders = new AtomicInteger();
+    private MovieProperties properties;
+    private MovieService movieService;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new MovieProperties();
+        movieService = new MovieService(properties) {
+            @Override
+            public long getCatalogVersion() {
+                return catalogVersion.get();
+            }
+        };
+    }
+
+    /**
+     * A template engine that reads the application templates straight from the classpath.
+     */
+    static SpringTemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+
+    private MovieCardRenderer countingRenderer() {
+        return new MovieCardRenderer(templateEngine(), movieService, properties, "") {
+            @Override
+            String renderCard(Movie movie) {
+                renders.incrementAndGet();
+                return super.renderCard(movie);
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Should render a card with the icon, title, rating and details link")
+    public void testRenderCard() {
+        Movie movie = movieService.getLocalMovieById(1L).get();
+        String html = countingRenderer().renderCards(Arrays.asList(movie));
+
+        assertTrue(html.contains("movie-card"), "Should be a movie card, arrr!");
+        assertTrue(html.contains("🔒"), "Should show the icon from the icon mapping");
+        assertTrue(html.contains("The Prison Escape"));
+        assertTrue(html.contains("5.0/5"));
+        assertTrue(html.contains("href=\"/movies/1/details\""), "Should link to the details page");
+    }
+
+    @Test
+    @DisplayName("Should render each card once per catalog version")
+    public void testCardsAreReused() {
+        MovieCardRenderer renderer = countingRenderer();
+        List<Movie> movies = movieService.getAllMovies();
+
+        String first = renderer.renderCards(movies);
+        String second = renderer.renderCards(movies);
+        assertEquals(first, second, "The same movies should give the same markup");
+        assertEquals(movies.size(), renders.get(), "Every card should be rendered only once, matey!");
+        assertEquals(movies.size(), renderer.getCachedCardCount());
+
+        catalogVersion.incrementAndGet();
+        renderer.renderCards(movies.subList(0, 3));
+        assertEquals(movies.size() + 3, renders.get(), "A new catalog version should start afresh");
+        assertEquals(3, renderer.getCachedCardCount());
+    }
+
+    @Test
+    @DisplayName("Should not reuse a card for a different movie with the same ID")
+    public void testDifferentInstanceIsRerendered() {
+        MovieCardRenderer renderer = countingRenderer();
+        Movie original = new Movie(1L, "Old Title", "Director", 2000, "Drama", "Old", 100, 3.0);
+        Movie updated = new Movie(1L, "New Title", "Director", 2000, "Drama", "New", 100, 3.0);
+
+        renderer.renderCards(Arrays.asList(original));
+        String html = renderer.renderCards(Arrays.asList(updated));
+
+        assertTrue(html.contains("New Title"), "Should show the movie that was asked for");
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    @DisplayName("Should render every time when the card cache is disabled")
+    public void testDisabledCache() {
+        properties.getCardCache().setEnabled(false);
+        MovieCardRenderer renderer = countingRenderer();
+        List<Movie> movies = movieService.getAllMovies();
+
+        renderer.renderCards(movies);
+        renderer.renderCards(movies);
+
+        assertEquals(movies.size() * 2, renders.get());
+        assertEquals(0, renderer.getCachedCardCount());
+    }
+}
@@ -0,0 +1,76 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for streaming the whole treasure chest out as NDJSON and CSV.
+ */
+@DisplayName("MovieCatalogExporter Tests")
+public class MovieCatalogExporterTest {
+
+    private MovieCatalogExporter exporter;
+
+    @BeforeEach
+    public void setUp() {
+        MovieProperties properties = new MovieProperties();
+        properties.getExport().setFlushEvery(5);
+        exporter = new MovieCatalogExporter(new MovieService(properties), new ReviewService(), properties);
+    }
+
+    @Test
+    @DisplayName("Should write one JSON object per line with review aggregates")
+    public void testExportNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = exporter.export(ExportFormat.NDJSON, out);
+        
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(12, written, "Should export all 12 movie treasures");
+        assertEquals(12, lines.length, "Should write one line per movie");
+        
+        JSONObject first = new JSONObject(lines[0]);
+        assertEquals(1L, first.getLong("id"));
+        assertEquals("The Prison Escape", first.getString("movieName"));
+        assertEquals(3, first.getInt("reviewCount"), "Should include the review count");
+        assertTrue(first.getDouble("averageReviewRating") > 4.5, "Should include the average review rating");
+    }
+
+    @Test
+    @DisplayName("Should write a header and one CSV record per movie")
+    public void testExportCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(ExportFormat.CSV, out);
+        
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\r\n");
+        assertEquals(13, lines.length, "Should write a header plus one record per movie");
+        assertTrue(lines[0].startsWith("id,movieName,director"));
+        assertTrue(lines[1].startsWith("1,The Prison Escape,John Director,1994,Drama,142,5.0,3,4.83,"));
+    }
+
+    @Test
+    @DisplayName("Should quote CSV fields holding separators and quotes")
+    public void testCsvField() {
+        assertEquals("Drama", MovieCatalogExporter.csvField("Drama"));
+        assertEquals("\"Space Wars: the beginning, part 1\"",
+            MovieCatalogExporter.csvField("Space Wars: the beginning, part 1"));
+        assertEquals("\"The \"\"Boss\"\"\"", MovieCatalogExporter.csvField("The \"Boss\""));
+    }
+
+    @Test
+    @DisplayName("Should parse export formats and reject unknown ones")
+    public void testExportFormatFromParameter() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromParameter(" CSV "));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromParameter("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.fromParameter("xml"));
+    }
+}
@@ -3,6 +3,9 @@ package com.amazonaws.samples.qdevmovies.movies;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.List;
 import java.util.Optional;
@@ -205,4 +208,88 @@ public class MovieServiceTest {
         assertEquals("The Prison Escape", results.get(0).getMovieName(), 
                     "Should return movie with specified ID, ignoring other criteria");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should serve repeated searches from the search cache")
+    public void testSearchMovieTreasuresUsesCache() {
+        List<Movie> first = movieService.searchMovieTreasures("the", null, "drama");
+        List<Movie> second = movieService.searchMovieTreasures("  THE ", null, "Drama ");
+        
+        assertEquals(first, second, "Normalized searches should return the same treasures");
+        SearchResultCache.Stats stats = movieService.getSearchCacheStats().get();
+        assertEquals(1, stats.getMisses(), "First search should miss the cache");
+        assertEquals(1, stats.getHits(), "Normalized repeat search should hit the cache");
+    }
+
+    @Test
+    @DisplayName("Should fill the search cache during warm-up without counting hits and misses")
+    public void testWarmupSearchesAreNotCounted() {
+        MockHttpServletRequest warmup = new MockHttpServletRequest("GET", "/movies/search");
+        warmup.addHeader(WarmupRunner.WARMUP_HEADER, WarmupRunner.WARMUP_TOKEN);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(warmup));
+        try {
+            movieService.searchMovieTreasures("the", null, null);
+            movieService.searchMovieTreasures("the", null, null);
+            movieService.searchMovieTreasuresBatch(java.util.Arrays.asList(
+                SearchCriteria.of("the", null, null), SearchCriteria.of(null, null, "drama")));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        SearchResultCache.Stats warmedUp = movieService.getSearchCacheStats().get();
+        assertEquals(0, warmedUp.getHits() + warmedUp.getMisses(), "Warm-up lookups should not be counted, arrr!");
+
+        movieService.searchMovieTreasures("the", null, null);
+        movieService.searchMovieTreasures(null, null, "drama");
+        SearchResultCache.Stats served = movieService.getSearchCacheStats().get();
+        assertEquals(2, served.getHits(), "Real searches should find what the warm-up cached");
+        assertEquals(0, served.getMisses());
+    }
+
+    @Test
+    @DisplayName("Should not cache searches when the search cache is disabled")
+    public void testSearchMovieTreasuresWithCacheDisabled() {
+        MovieProperties properties = new MovieProperties();
+        properties.getSearchCache().setEnabled(false);
+        MovieService uncachedService = new MovieService(properties);
+        
+        assertEquals(1, uncachedService.searchMovieTreasures("prison", null, null).size());
+        assertFalse(uncachedService.getSearchCacheStats().isPresent(), "Disabled cache should report no stats");
+    }
+
+    @Test
+    @DisplayName("Should answer a batch of searches exactly like individual searches")
+    public void testSearchMovieTreasuresBatch() {
+        List<SearchCriteria> criteria = java.util.Arrays.asList(
+            SearchCriteria.of("the", null, null),
+            SearchCriteria.of(null, null, "Crime"),
+            SearchCriteria.of(null, 5L, null),
+            SearchCriteria.of("THE ", null, null),
+            SearchCriteria.of(null, null, null));
+        
+        List<List<Movie>> results = movieService.searchMovieTreasuresBatch(criteria);
+        
+        assertEquals(5, results.size());
+        assertEquals(movieService.searchMovieTreasures("the", null, null), results.get(0));
+        assertEquals(movieService.searchMovieTreasures(null, null, "Crime"), results.get(1));
+        assertEquals(movieService.searchMovieTreasures(null, 5L, null), results.get(2));
+        assertEquals(results.get(0), results.get(3), "Equivalent criteria should get the same treasures");
+        assertEquals(movieService.getAllMovies().size(), results.get(4).size());
+    }
+
+    @Test
+    @DisplayName("Should serve a reloaded catalog as a new version without stale cached searches")
+    public void testReloadCatalog() {
+        List<Movie> before = movieService.searchMovieTreasures(null, null, "drama");
+        long version = movieService.getCatalogVersion();
+
+        MovieCatalog reloaded = movieService.reloadCatalog();
+
+        assertEquals(version + 1, reloaded.getVersion(), "A reload should start a new catalog version, arrr!");
+        assertEquals(reloaded.getVersion(), movieService.getCatalogVersion());
+        List<Movie> after = movieService.searchMovieTreasures(null, null, "drama");
+        assertEquals(before.size(), after.size());
+        assertNotSame(before.get(0), after.get(0), "Results should come from the reloaded movies, not the cache");
+        assertSame(reloaded.getMovies().get(0), movieService.getAllMovies().get(0));
+        assertEquals(2, movieService.getSearchCacheStats().get().getMisses(), "The reload should start the cache afresh");
+    }
+}
@@ -0,0 +1,138 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for sorting treasures with the precomputed sort permutations.
+ */
+@DisplayName("MovieSort Tests")
+public class MovieSortTest {
+
+    @Test
+    @DisplayName("Should parse sort parameters, using each field's usual direction by default")
+    public void testFromParameters() {
+        assertSame(MovieSort.CATALOG_ORDER, MovieSort.fromParameters(null, "desc"));
+        assertSame(MovieSort.CATALOG_ORDER, MovieSort.fromParameters("  ", null));
+        assertEquals(MovieSort.by(MovieSort.Field.RATING, true), MovieSort.fromParameters("Rating", null));
+        assertEquals(MovieSort.by(MovieSort.Field.TITLE, false), MovieSort.fromParameters("title", ""));
+        assertEquals(MovieSort.by(MovieSort.Field.YEAR, false), MovieSort.fromParameters("year", "ASC"));
+        assertThrows(IllegalArgumentException.class, () -> MovieSort.fromParameters("treasure", null));
+        assertThrows(IllegalArgumentException.class, () -> MovieSort.fromParameters("year", "sideways"));
+    }
+
+    @Test
+    @DisplayName("Should match a plain comparison sort for every order, small and large results alike")
+    public void testPermutationsMatchComparatorSort() {
+        List<Movie> movies = randomMovies(500, new Random(7));
+        MovieCatalog catalog = new MovieCatalog(1, movies, 0);
+
+        for (MovieSort.Field field : MovieSort.Field.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                MovieSort sort = MovieSort.by(field, descending);
+                Comparator<Movie> expectedOrder = field.comparator(descending).thenComparingLong(Movie::getId);
+
+                assertEquals(sorted(catalog.getMovies(), expectedOrder), catalog.sort(catalog.getMovies(), sort),
+                    "The whole catalog should be sorted by " + sort);
+                List<Movie> small = everyNth(catalog.getMovies(), 50);
+                assertEquals(sorted(small, expectedOrder), catalog.sort(small, sort), "A small result, by " + sort);
+                List<Movie> large = everyNth(catalog.getMovies(), 2);
+                assertEquals(sorted(large, expectedOrder), catalog.sort(large, sort), "A large result, by " + sort);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should sort movies from outside the catalog by comparison")
+    public void testForeignMoviesAreSorted() {
+        MovieCatalog catalog = new MovieCatalog(1, randomMovies(20, new Random(3)), 0);
+        List<Movie> foreign = Arrays.asList(
+            new Movie(100L, "Zebra Cove", "Director", 1990, "Drama", "", 90, 3.0),
+            new Movie(101L, "anchor bay", "Director", 2010, "Drama", "", 120, 4.5));
+
+        List<Movie> byTitle = catalog.sort(foreign, MovieSort.fromParameters("title", null));
+
+        assertEquals("anchor bay", byTitle.get(0).getMovieName(), "Titles should sort case-insensitively, arrr!");
+        assertSame(foreign, catalog.sort(foreign, MovieSort.CATALOG_ORDER));
+    }
+
+    @Test
+    @DisplayName("Should break ties by catalog position on both paths when the catalog is not in ID order")
+    public void testTiesFollowCatalogPositionOnBothPaths() {
+        List<Movie> movies = Arrays.asList(
+            new Movie(30L, "Tide", "Director", 1990, "Drama", "", 90, 4.0),
+            new Movie(10L, "Reef", "Director", 1991, "Drama", "", 90, 4.0),
+            new Movie(20L, "Kraken", "Director", 1992, "Drama", "", 90, 5.0),
+            new Movie(40L, "Gull", "Director", 1993, "Drama", "", 90, 4.0));
+        MovieCatalog catalog = new MovieCatalog(1, movies, 0);
+        MovieSort byRating = MovieSort.fromParameters("rating", null);
+        List<Movie> subset = Arrays.asList(movies.get(3), movies.get(0), movies.get(1));
+
+        List<Movie> fromPermutations = catalog.sort(subset, byRating);
+        Movie foreign = new Movie(5L, "Stray", "Director", 2000, "Drama", "", 90, 4.0);
+        List<Movie> withForeign = new ArrayList<>(subset);
+        withForeign.add(0, foreign);
+        List<Movie> fromComparison = catalog.sort(withForeign, byRating);
+
+        assertEquals(Arrays.asList(30L, 10L, 40L), ids(fromPermutations), "Ties should keep catalog position, arrr!");
+        assertEquals(Arrays.asList(30L, 10L, 40L, 5L), ids(fromComparison),
+            "The comparison fallback should agree, with the stranger after the catalog's own movies");
+    }
+
+    private static List<Long> ids(List<Movie> movies) {
+        List<Long> ids = new ArrayList<>();
+        for (Movie movie : movies) {
+            ids.add(movie.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should keep catalog order between movies that tie")
+    public void testTiesKeepCatalogOrder() {
+        MovieService movieService = new MovieService();
+        List<Movie> byRating = movieService.sortMovies(movieService.getAllMovies(), MovieSort.fromParameters("rating", null));
+
+        for (int i = 1; i < byRating.size(); i++) {
+            Movie previous = byRating.get(i - 1);
+            Movie current = byRating.get(i);
+            assertTrue(previous.getImdbRating() > current.getImdbRating()
+                || (previous.getImdbRating() == current.getImdbRating() && previous.getId() < current.getId()),
+                "Ratings should descend, ties in ID order, matey");
+        }
+    }
+
+    private static List<Movie> randomMovies(int count, Random random) {
+        List<Movie> movies = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            movies.add(new Movie(id, "Movie " + (char) ('a' + random.nextInt(26)) + random.nextInt(50), "Director",
+                1950 + random.nextInt(70), "Drama", "", 80 + random.nextInt(60), (2 + random.nextInt(9)) / 2.0));
+        }
+        return movies;
+    }
+
+    private static List<Movie> everyNth(List<Movie> movies, int n) {
+        List<Movie> subset = new ArrayList<>();
+        for (int i = movies.size() - 1; i >= 0; i -= n) {
+            subset.add(movies.get(i));
+        }
+        return subset;
+    }
+
+    private static List<Movie> sorted(List<Movie> movies, Comparator<Movie> order) {
+        List<Movie> sorted = new ArrayList<>(movies);
+        sorted.sort(order);
+        return sorted;
+    }
+}
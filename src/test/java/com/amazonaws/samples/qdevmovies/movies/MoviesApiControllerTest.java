@@ -0,0 +1,307 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.json.JSONArray;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.servlet.AsyncListener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ahoy matey! Tests for the JSON API endpoints that hand out movie treasures in bulk.
+ */
+@DisplayName("MoviesApiController Tests")
+public class MoviesApiControllerTest {
+
+    private MoviesApiController apiController;
+    private MovieProperties movieProperties;
+    private MovieService movieService;
+    private CborMovieEncoder cborEncoder;
+    private MockMvc mockMvc;
+    private final List<MovieCatalogExporter> exporters = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        for (MovieCatalogExporter exporter : exporters) {
+            exporter.shutdown();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        apiController = new MoviesApiController();
+        movieProperties = new MovieProperties();
+        movieService = new MovieService(movieProperties);
+        cborEncoder = new CborMovieEncoder(new Jackson2ObjectMapperBuilder(), movieService, movieProperties);
+        
+        // Inject the real services using reflection
+        try {
+            java.lang.reflect.Field movieServiceField = MoviesApiController.class.getDeclaredField("movieService");
+            movieServiceField.setAccessible(true);
+            movieServiceField.set(apiController, movieService);
+            
+            java.lang.reflect.Field propertiesField = MoviesApiController.class.getDeclaredField("movieProperties");
+            propertiesField.setAccessible(true);
+            propertiesField.set(apiController, movieProperties);
+
+            java.lang.reflect.Field reviewServiceField = MoviesApiController.class.getDeclaredField("reviewService");
+            reviewServiceField.setAccessible(true);
+            reviewServiceField.set(apiController, new ReviewService());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to inject services", e);
+        }
+        // The same converters, in the same order, as Spring Boot sets up around the CBOR converter bean
+        List<HttpMessageConverter<?>> converters = new HttpMessageConverters(new CborMovieConverter(cborEncoder)).getConverters();
+        mockMvc = MockMvcBuilders.standaloneSetup(apiController)
+            .setMessageConverters(converters.toArray(new HttpMessageConverter<?>[0]))
+            .setAsyncRequestTimeout(100)
+            .build();
+    }
+
+    @Test
+    @DisplayName("Should fetch a batch of movies by ID in request order")
+    public void testGetMoviesBatch() throws Exception {
+        mockMvc.perform(post("/api/movies/batch").contentType(MediaType.APPLICATION_JSON).content("[3, 1, 999, 3]"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(3))
+            .andExpect(jsonPath("$[1].id").value(1));
+    }
+
+    @Test
+    @DisplayName("Should reject batches larger than the configured limit")
+    public void testGetMoviesBatchTooLarge() throws Exception {
+        movieProperties.getBatch().setMaxIds(2);
+        
+        mockMvc.perform(post("/api/movies/batch").contentType(MediaType.APPLICATION_JSON).content("[1, 2, 3]"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error", containsString("at most 2")));
+    }
+
+    @Test
+    @DisplayName("Should answer a batch of searches in request order")
+    public void testSearchMoviesBatch() throws Exception {
+        String body = mockMvc.perform(post("/api/movies/batch-search").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\": \"prison\"}, {\"id\": 2}, {\"genre\": \"drama\"}, {\"name\": \"nonexistent\"}]"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        JSONArray results = new JSONArray(body);
+        
+        assertEquals(4, results.length());
+        assertEquals("The Prison Escape", results.getJSONObject(0).getJSONArray("movies").getJSONObject(0).getString("movieName"));
+        assertEquals(2L, results.getJSONObject(1).getJSONArray("movies").getJSONObject(0).getLong("id"));
+        int dramas = results.getJSONObject(2).getInt("count");
+        assertTrue(dramas >= 2, "Should find multiple drama treasures");
+        assertEquals(0, results.getJSONObject(3).getInt("count"));
+        assertEquals("prison", results.getJSONObject(0).getJSONObject("request").getString("name"), "Should echo the request");
+        assertEquals(dramas, results.getJSONObject(2).getJSONObject("facets").getJSONObject("genre").getInt("Drama"),
+            "Every drama treasure should count towards the Drama facet");
+    }
+
+    @Test
+    @DisplayName("Should reject search batches larger than the configured limit")
+    public void testSearchMoviesBatchTooLarge() throws Exception {
+        movieProperties.getBatch().setMaxSearches(0);
+        
+        mockMvc.perform(post("/api/movies/batch-search").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\": \"prison\"}]"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should answer in CBOR only when the caller ranks it above JSON")
+    public void testCborContentNegotiation() throws Exception {
+        String[] cborAccepts = {"application/cbor", "application/json;q=0.5, application/cbor", "application/cbor, */*;q=0.1"};
+        for (String accept : cborAccepts) {
+            mockMvc.perform(post("/api/movies/batch").header(HttpHeaders.ACCEPT, accept)
+                    .contentType(MediaType.APPLICATION_JSON).content("[1]"))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        }
+        String[] jsonAccepts = {"*/*", "application/json, application/cbor;q=0.9", "application/*"};
+        for (String accept : jsonAccepts) {
+            mockMvc.perform(post("/api/movies/batch").header(HttpHeaders.ACCEPT, accept)
+                    .contentType(MediaType.APPLICATION_JSON).content("[1]"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        }
+        mockMvc.perform(post("/api/movies/batch").contentType(MediaType.APPLICATION_JSON).content("[1]"))
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @DisplayName("Should write movies as CBOR from the per-movie cache and carry what the JSON does")
+    public void testCborResponses() throws Exception {
+        ObjectMapper jsonMapper = new ObjectMapper();
+        CBORMapper cborMapper = new CBORMapper();
+        String[] requests = {"/api/movies/batch", "[3, 1, 2]",
+            "/api/movies/batch-search", "[{\"genre\": \"drama\"}, {\"name\": \"zzz\"}]"};
+        for (int i = 0; i < requests.length; i += 2) {
+            byte[] json = mockMvc.perform(post(requests[i]).contentType(MediaType.APPLICATION_JSON).content(requests[i + 1]))
+                .andReturn().getResponse().getContentAsByteArray();
+            byte[] cbor = mockMvc.perform(post(requests[i]).header(HttpHeaders.ACCEPT, "application/cbor")
+                    .contentType(MediaType.APPLICATION_JSON).content(requests[i + 1]))
+                .andReturn().getResponse().getContentAsByteArray();
+            assertEquals(jsonMapper.readTree(json), cborMapper.readTree(cbor), "CBOR should carry exactly what the JSON does, matey!");
+        }
+        assertTrue(cborEncoder.getCachedMovieCount() > 0, "Movies should come from the per-movie cache");
+
+        List<Movie> movies = movieService.getMoviesByIds(Arrays.asList(3L, 1L, 2L));
+        byte[] cbor = mockMvc.perform(post("/api/movies/batch").header(HttpHeaders.ACCEPT, "application/cbor")
+                .contentType(MediaType.APPLICATION_JSON).content("[3, 1, 2]"))
+            .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(cborEncoder.encodeMovies(movies), cbor);
+
+        byte[] reviewsJson = mockMvc.perform(get("/api/movies/1/reviews"))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+        byte[] reviewsCbor = mockMvc.perform(get("/api/movies/1/reviews").header(HttpHeaders.ACCEPT, "application/cbor"))
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR)).andReturn().getResponse().getContentAsByteArray();
+        assertEquals(jsonMapper.readTree(reviewsJson), cborMapper.readTree(reviewsCbor), "Reviews should be CBOR too, arrr!");
+    }
+
+    @Test
+    @DisplayName("Should finish an export that runs longer than the default async request timeout")
+    public void testExportOutlastsDefaultAsyncTimeout() throws Exception {
+        movieProperties.getExport().setTimeoutMillis(10_000);
+        AtomicReference<String> exportThread = new AtomicReference<>();
+        MovieCatalogExporter slowExporter = new MovieCatalogExporter(new MovieService(movieProperties),
+            new ReviewService(), movieProperties) {
+            @Override
+            public int export(ExportFormat format, OutputStream outputStream) throws IOException {
+                exportThread.set(Thread.currentThread().getName());
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Export interrupted", e);
+                }
+                return super.export(format, outputStream);
+            }
+        };
+        useExporter(slowExporter);
+
+        MvcResult started = mockMvc.perform(get("/api/movies/export").param("format", "csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertEquals(10_000, started.getRequest().getAsyncContext().getTimeout(),
+            "The export should run under its own timeout, not the 100 ms default, arrr!");
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        String[] lines = started.getResponse().getContentAsString().split("\r\n");
+        assertEquals(13, lines.length, "The whole chest should be exported, matey");
+        assertTrue(started.getResponse().getContentType().startsWith("text/csv"));
+        assertTrue(exportThread.get().startsWith("catalog-export-"), "Exports should run on their own threads");
+    }
+
+    @Test
+    @DisplayName("Should stop an export that runs past its time limit and answer 503")
+    public void testExportTimeoutStopsExport() throws Exception {
+        movieProperties.getExport().setTimeoutMillis(50);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        MovieCatalogExporter stuckExporter = new MovieCatalogExporter(new MovieService(movieProperties),
+            new ReviewService(), movieProperties) {
+            @Override
+            public int export(ExportFormat format, OutputStream outputStream) throws IOException {
+                running.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                throw new InterruptedIOException("Export cancelled");
+            }
+        };
+        useExporter(stuckExporter);
+
+        MvcResult started = mockMvc.perform(get("/api/movies/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        // MockMvc has no container to time the request out, so fire the timeout as the container would
+        MockAsyncContext asyncContext = (MockAsyncContext) started.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(null);
+        }
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The export should be stopped, not left running, arrr!");
+        ThreadPoolExecutor exportThreads = ((ThreadPoolTaskExecutor) stuckExporter.getExecutor()).getThreadPoolExecutor();
+        while (exportThreads.getActiveCount() > 0) {
+            Thread.sleep(10);
+        }
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("Should turn exports away with 503 once every export thread is busy")
+    public void testExportRejectedWhenExportersBusy() throws Exception {
+        movieProperties.getExport().setConcurrency(1);
+        movieProperties.getExport().setQueueCapacity(0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        useExporter(new MovieCatalogExporter(new MovieService(movieProperties),
+            new ReviewService(), movieProperties) {
+            @Override
+            public int export(ExportFormat format, OutputStream outputStream) throws IOException {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.export(format, outputStream);
+            }
+        });
+
+        MvcResult first = mockMvc.perform(get("/api/movies/export")).andExpect(request().asyncStarted()).andReturn();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        MvcResult second = mockMvc.perform(get("/api/movies/export")).andReturn();
+        release.countDown();
+
+        assertEquals(503, second.getResponse().getStatus(), "A second export should be turned away, matey");
+        assertTrue(second.getResponse().getContentAsString().contains("Too many catalog exports"));
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+    }
+
+    private void useExporter(MovieCatalogExporter exporter) throws Exception {
+        exporters.add(exporter);
+        java.lang.reflect.Field exporterField = MoviesApiController.class.getDeclaredField("catalogExporter");
+        exporterField.setAccessible(true);
+        exporterField.set(apiController, exporter);
+    }
+}
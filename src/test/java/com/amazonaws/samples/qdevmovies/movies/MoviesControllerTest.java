@@ -114,6 +114,11 @@ public class MoviesControllerTest {
             java.lang.reflect.Field reviewServiceField = MoviesController.class.getDeclaredField("reviewService");
             reviewServiceField.setAccessible(true);
             reviewServiceField.set(moviesController, mockReviewService);
+            
+            java.lang.reflect.Field cardRendererField = MoviesController.class.getDeclaredField("cardRenderer");
+            cardRendererField.setAccessible(true);
+            cardRendererField.set(moviesController, new MovieCardRenderer(
+                MovieCardRendererTest.templateEngine(), mockMovieService, new MovieProperties(), ""));
         } catch (Exception e) {
             throw new RuntimeException("Failed to inject mock services", e);
         }
@@ -122,7 +127,7 @@ public class MoviesControllerTest {
     @Test
     @DisplayName("Should get all movies and genres for main page")
     public void testGetMovies() {
-        String result = moviesController.getMovies(model);
+        String result = moviesController.getMovies(null, null, model);
         
         assertNotNull(result, "Result should not be null, arrr!");
         assertEquals("movies", result, "Should return movies template");
@@ -130,20 +135,52 @@ public class MoviesControllerTest {
         // Verify model attributes
         assertTrue(model.containsAttribute("movies"), "Model should contain movies attribute");
         assertTrue(model.containsAttribute("genres"), "Model should contain genres attribute");
+        assertTrue(model.containsAttribute("leaderboards"), "Model should contain the top-rated leaderboards");
         
         @SuppressWarnings("unchecked")
         List<Movie> movies = (List<Movie>) model.asMap().get("movies");
         assertEquals(2, movies.size(), "Should have 2 movie treasures");
         
+        String movieCards = (String) model.asMap().get("movieCards");
+        assertTrue(movieCards.contains("Sea Battle"), "Model should contain the rendered movie cards");
+        
         @SuppressWarnings("unchecked")
         List<String> genres = (List<String>) model.asMap().get("genres");
         assertEquals(3, genres.size(), "Should have 3 genre treasures");
     }
 
+    @Test
+    @DisplayName("Should sort the treasure chest and offer links for the other orders")
+    public void testGetMoviesSorted() {
+        String result = moviesController.getMovies("rating", null, model);
+        
+        assertEquals("movies", result, "Should return movies template");
+        @SuppressWarnings("unchecked")
+        List<Movie> movies = (List<Movie>) model.asMap().get("movies");
+        assertEquals("The Pirate's Treasure", movies.get(0).getMovieName(), "Highest rated treasure should come first");
+        
+        @SuppressWarnings("unchecked")
+        List<MoviesController.SortLink> sortLinks = (List<MoviesController.SortLink>) model.asMap().get("sortLinks");
+        assertEquals(5, sortLinks.size(), "Should offer catalog order plus one link per sort field");
+        assertTrue(sortLinks.stream().anyMatch(link -> link.isActive() && link.getUrl().equals("/movies?sort=rating&direction=asc")),
+            "The active sort's link should flip its direction");
+    }
+
+    @Test
+    @DisplayName("Should keep search criteria in sort links and report an unknown sort")
+    public void testSearchWithInvalidSort() {
+        moviesController.searchMovieTreasures("sea", null, null, "treasure", null, model);
+        
+        assertTrue(model.containsAttribute("searchError"), "Should explain the unknown sort, arrr!");
+        @SuppressWarnings("unchecked")
+        List<MoviesController.SortLink> sortLinks = (List<MoviesController.SortLink>) model.asMap().get("sortLinks");
+        assertTrue(sortLinks.get(1).getUrl().startsWith("/movies/search?name=sea&sort="), "Sort links should keep the search");
+    }
+
     @Test
     @DisplayName("Should search movie treasures by name successfully")
     public void testSearchMovieTreasuresByName() {
-        String result = moviesController.searchMovieTreasures("pirate", null, null, model);
+        String result = moviesController.searchMovieTreasures("pirate", null, null, null, null, model);
         
         assertNotNull(result, "Result should not be null, matey!");
         assertEquals("movies", result, "Should return movies template");
@@ -162,7 +199,7 @@ public class MoviesControllerTest {
     @Test
     @DisplayName("Should search movie treasures by ID successfully")
     public void testSearchMovieTreasuresById() {
-        String result = moviesController.searchMovieTreasures(null, 1L, null, model);
+        String result = moviesController.searchMovieTreasures(null, 1L, null, null, null, model);
         
         assertNotNull(result, "Result should not be null, ye scurvy dog!");
         assertEquals("movies", result, "Should return movies template");
@@ -181,7 +218,7 @@ public class MoviesControllerTest {
     @Test
     @DisplayName("Should search movie treasures by genre successfully")
     public void testSearchMovieTreasuresByGenre() {
-        String result = moviesController.searchMovieTreasures(null, null, "Adventure", model);
+        String result = moviesController.searchMovieTreasures(null, null, "Adventure", null, null, model);
         
         assertNotNull(result, "Result should not be null, arrr!");
         assertEquals("movies", result, "Should return movies template");
@@ -200,7 +237,7 @@ public class MoviesControllerTest {
     @Test
     @DisplayName("Should handle empty search results with pirate message")
     public void testSearchMovieTreasuresNoResults() {
-        String result = moviesController.searchMovieTreasures("nonexistent", null, null, model);
+        String result = moviesController.searchMovieTreasures("nonexistent", null, null, null, null, model);
         
         assertNotNull(result, "Result should not be null, matey!");
         assertEquals("movies", result, "Should return movies template");
@@ -219,7 +256,7 @@ public class MoviesControllerTest {
     @Test
     @DisplayName("Should handle invalid search criteria with error message")
     public void testSearchMovieTreasuresInvalidCriteria() {
-        String result = moviesController.searchMovieTreasures(null, null, null, model);
+        String result = moviesController.searchMovieTreasures(null, null, null, null, null, model);
         
         assertNotNull(result, "Result should not be null, ye landlubber!");
         assertEquals("movies", result, "Should return movies template");
@@ -238,7 +275,7 @@ public class MoviesControllerTest {
     @Test
     @DisplayName("Should handle empty string search criteria")
     public void testSearchMovieTreasuresEmptyStrings() {
-        String result = moviesController.searchMovieTreasures("", null, "", model);
+        String result = moviesController.searchMovieTreasures("", null, "", null, null, model);
         
         assertNotNull(result, "Result should not be null, arrr!");
         assertEquals("movies", result, "Should return movies template");
@@ -255,7 +292,7 @@ public class MoviesControllerTest {
     @Test
     @DisplayName("Should preserve all search parameters in model")
     public void testSearchMovieTreasuresPreservesParameters() {
-        String result = moviesController.searchMovieTreasures("test", 1L, "Adventure", model);
+        String result = moviesController.searchMovieTreasures("test", 1L, "Adventure", null, null, model);
         
         assertNotNull(result, "Result should not be null, matey!");
         assertEquals("movies", result, "Should return movies template");
@@ -281,6 +318,7 @@ public class MoviesControllerTest {
         assertTrue(model.containsAttribute("movie"), "Model should contain movie");
         assertTrue(model.containsAttribute("movieIcon"), "Model should contain movie icon");
         assertTrue(model.containsAttribute("allReviews"), "Model should contain reviews");
+        assertTrue(model.containsAttribute("similarMovies"), "Model should contain similar movies");
     }
 
     @Test
@@ -0,0 +1,83 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for planning treasure hunts by the selectivity of their predicates.
+ */
+@DisplayName("QueryPlanner Tests")
+public class QueryPlannerTest {
+
+    @Test
+    @DisplayName("Should find the same movies as a plain scan, in catalog order")
+    public void testPlannedSearchMatchesScan() {
+        Random random = new Random(5);
+        String[] words = {"the", "pirate", "treasure", "ship", "sea", "island", "gold", "storm"};
+        String[] genres = {"Drama", "Crime/Drama", "Action/Adventure", "Comedy", "Adventure/Romance"};
+        List<Movie> movies = new ArrayList<>();
+        for (long id = 1; id <= 400; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id;
+            movies.add(new Movie(id, name, "Director", 2000, genres[random.nextInt(genres.length)], "", 100, 4.0));
+        }
+        MovieCatalog catalog = new MovieCatalog(1, movies, 0);
+        String[] names = {null, "th", "pirate", "sea gold", "ship 1", "zzz", "e"};
+        String[] genreQueries = {null, "drama", "adv", "rom", "crime/drama", "dr"};
+
+        for (String name : names) {
+            for (String genre : genreQueries) {
+                SearchCriteria criteria = SearchCriteria.of(name, null, genre);
+                List<Movie> expected = movies.stream().filter(criteria::matches).collect(Collectors.toList());
+                assertEquals(expected, catalog.search(criteria), "Planned search should match a scan for " + criteria);
+                assertEquals(expected.size(), catalog.explain(criteria).getResultCount());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should run the most selective predicate first and filter with the rest")
+    public void testMostSelectivePredicateFirst() {
+        MovieCatalog catalog = new MovieCatalog(1, new MovieService().getAllMovies(), 0);
+
+        QueryPlan plan = catalog.explain(SearchCriteria.of("the", null, "crime"));
+
+        assertEquals(2, plan.getSteps().size());
+        QueryPlan.Step first = plan.getSteps().get(0);
+        QueryPlan.Step second = plan.getSteps().get(1);
+        assertEquals("genre", first.getPredicate(), "Fewer treasures be crime movies than have 'the' in the name, arrr!");
+        assertEquals(QueryPlan.Access.TRIGRAM_INDEX, first.getAccess());
+        assertEquals("name", second.getPredicate());
+        assertEquals(QueryPlan.Access.FILTER, second.getAccess());
+        assertEquals(first.getActualRows(), second.getExaminedRows(), "The filter should only look at the rows kept so far");
+        assertEquals(second.getActualRows(), plan.getResultCount());
+        assertTrue(first.getEstimatedRows() >= first.getActualRows(), "A trigram estimate never undercounts");
+        assertTrue(first.getExaminedRows() < catalog.size(), "The index should spare a full scan");
+    }
+
+    @Test
+    @DisplayName("Should scan for values too short to index and look IDs up directly")
+    public void testAccessPaths() {
+        MovieCatalog catalog = new MovieCatalog(1, new MovieService().getAllMovies(), 0);
+
+        QueryPlan shortName = catalog.explain(SearchCriteria.of("th", null, null));
+        assertEquals(QueryPlan.Access.FULL_SCAN, shortName.getSteps().get(0).getAccess());
+        assertEquals(catalog.size(), shortName.getSteps().get(0).getExaminedRows());
+
+        QueryPlan byId = catalog.explain(SearchCriteria.of("ignored", 3L, null));
+        assertEquals(1, byId.getSteps().size(), "An ID overrides the other criteria, matey!");
+        assertEquals(QueryPlan.Access.ID_LOOKUP, byId.getSteps().get(0).getAccess());
+        assertEquals(1, byId.getResultCount());
+
+        QueryPlan everything = catalog.explain(SearchCriteria.of(null, null, null));
+        assertTrue(everything.getSteps().isEmpty());
+        assertEquals(catalog.size(), everything.getResultCount());
+    }
+}
@@ -0,0 +1,148 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for the search result cache, making sure popular treasure hunts stay in the chest.
+ */
+@DisplayName("SearchResultCache Tests")
+public class SearchResultCacheTest {
+
+    @Test
+    @DisplayName("Should record hits and misses")
+    public void testHitsAndMisses() {
+        SearchResultCache<String, String> cache = SearchResultCache.ofMaximumEntries(10);
+
+        assertNull(cache.getIfPresent("drama"), "Empty cache should miss");
+        cache.put("drama", "results");
+        assertEquals("results", cache.getIfPresent("drama"));
+
+        SearchResultCache.Stats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate(), 0.0001);
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    @DisplayName("Should never hold more entries than the maximum")
+    public void testEntryBound() {
+        SearchResultCache<Integer, String> cache = SearchResultCache.ofMaximumEntries(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.getIfPresent(i);
+            cache.put(i, "value" + i);
+        }
+
+        SearchResultCache.Stats stats = cache.stats();
+        assertTrue(stats.getSize() <= 100, "Cache should stay within its bound, arrr!");
+        assertTrue(stats.getEvictions() >= 900, "Overflowing entries should be counted as evictions");
+    }
+
+    @Test
+    @DisplayName("Should keep frequently searched entries through a flood of one-off searches")
+    public void testFrequentEntriesSurviveScan() {
+        SearchResultCache<String, String> cache = SearchResultCache.ofMaximumEntries(100);
+        for (int i = 0; i < 10_000; i++) {
+            // Skewed traffic: every other request is one of 20 popular searches
+            String key = i % 2 == 0 ? "popular-" + (i / 2) % 20 : "one-off-" + i;
+            if (cache.getIfPresent(key) == null) {
+                cache.put(key, key);
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(cache.getIfPresent("popular-" + i), "Popular search " + i + " should still be cached");
+        }
+        assertTrue(cache.stats().getRejectedAdmissions() > 0, "One-off searches should be refused admission");
+    }
+
+    @Test
+    @DisplayName("Should bound the cache by estimated bytes")
+    public void testByteBound() {
+        SearchResultCache<Integer, String> cache =
+            SearchResultCache.ofMaximumBytes(1000, 100, (key, value) -> value.length());
+        for (int i = 0; i < 100; i++) {
+            cache.getIfPresent(i);
+            cache.put(i, "0123456789012345678901234567890123456789");
+        }
+
+        assertTrue(cache.stats().getWeight() <= 1000, "Cache weight should stay within the byte budget");
+
+        cache.put(-1, new String(new char[2000]));
+        assertNull(cache.getIfPresent(-1), "An entry larger than the whole cache should not be stored");
+    }
+
+    @Test
+    @DisplayName("Should drop everything on invalidateAll")
+    public void testInvalidateAll() {
+        SearchResultCache<String, String> cache = SearchResultCache.ofMaximumEntries(10);
+        cache.put("a", "1");
+        cache.invalidateAll();
+
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    @DisplayName("Should leave the main area untouched when a candidate loses to any of its victims")
+    public void testRefusedAdmissionEvictsNothing() {
+        // Window of weight 1, main area of weight 9
+        SearchResultCache<String, String> cache = new SearchResultCache<>(10, 10, (key, value) -> value.length());
+        for (int i = 0; i < 5; i++) {
+            cache.getIfPresent("b");
+        }
+        cache.getIfPresent("big");
+        cache.getIfPresent("big");
+        for (String key : new String[] {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j"}) {
+            cache.put(key, "1");
+        }
+        assertEquals(10, cache.stats().getSize(), "Nine entries in the main area and one in the window");
+
+        // Needs two units of room: "a" is seen less often than "big", but "b" more often
+        cache.put("big", "22");
+
+        assertNotNull(cache.getIfPresent("a"), "A refused candidate must not have evicted anybody, arrr!");
+        assertNotNull(cache.getIfPresent("b"));
+        assertNull(cache.getIfPresent("big"), "The candidate should have been refused");
+    }
+
+    @Test
+    @DisplayName("Should count every hit from many threads at once")
+    public void testConcurrentHits() throws Exception {
+        SearchResultCache<Integer, String> cache = SearchResultCache.ofMaximumEntries(1000);
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, "value" + i);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                readers.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        assertEquals("value" + i % 20, cache.getIfPresent(i % 20), "Cached treasure should be found");
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(80_000, cache.stats().getHits(), "No hit should go uncounted, matey");
+        assertEquals(20, cache.stats().getSize());
+    }
+}
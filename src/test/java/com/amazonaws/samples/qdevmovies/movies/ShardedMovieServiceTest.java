@@ -0,0 +1,251 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for the hash-partitioned catalog, running several shards side by side in one JVM.
+ * The shards talk through an in-process client instead of HTTP, but use the same routing.
+ */
+@DisplayName("Sharded MovieService Tests")
+public class ShardedMovieServiceTest {
+    private static final int SHARDS = 3;
+
+    private final List<MovieService> shards = new ArrayList<>();
+    private final Set<Integer> slowShards = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger remoteSearches = new AtomicInteger();
+    private final AtomicInteger remoteBatches = new AtomicInteger();
+    private MovieService unsharded;
+
+    @TempDir
+    Path directory;
+    private Path catalogFile;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        catalogFile = directory.resolve("movies.json");
+        try (InputStream catalog = getClass().getResourceAsStream("/movies.json")) {
+            Files.copy(catalog, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        ShardClient inProcessClient = new ShardClient() {
+            @Override
+            public Optional<Movie> getMovie(int shard, long id) {
+                return target(shard).getLocalMovieById(id);
+            }
+
+            @Override
+            public List<Movie> search(int shard, SearchCriteria criteria) {
+                remoteSearches.incrementAndGet();
+                return target(shard).searchLocalMovieTreasures(criteria);
+            }
+
+            @Override
+            public List<List<Movie>> searchBatch(int shard, List<SearchCriteria> criteriaList) {
+                remoteBatches.incrementAndGet();
+                return target(shard).searchLocalMovieTreasuresBatch(criteriaList);
+            }
+
+            @Override
+            public List<Movie> getSimilarMovies(int shard, long id) {
+                return target(shard).getLocalSimilarMovies(id);
+            }
+
+            @Override
+            public List<Movie> getAllMovies(int shard) {
+                return target(shard).getLocalMovies();
+            }
+        };
+        for (int i = 0; i < SHARDS; i++) {
+            MovieProperties properties = new MovieProperties();
+            properties.getSharding().setEnabled(true);
+            properties.getSharding().setShardIndex(i);
+            properties.getSharding().setNodes(Arrays.asList("shard-0", "shard-1", "shard-2"));
+            properties.getSharding().setTimeoutMillis(200);
+            properties.getCatalog().setLocation("file:" + catalogFile);
+            shards.add(new MovieService(properties, inProcessClient));
+        }
+        unsharded = new MovieService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shards.forEach(MovieService::shutdown);
+    }
+
+    private MovieService target(int shard) {
+        if (slowShards.contains(shard)) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return shards.get(shard);
+    }
+
+    @Test
+    @DisplayName("Should partition the catalog into disjoint shards covering every movie")
+    public void testPartitioning() {
+        Set<Long> seen = new HashSet<>();
+        int total = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            for (Movie movie : shards.get(i).getLocalMovies()) {
+                assertEquals(i, ShardRouter.shardOf(movie.getId(), SHARDS), "Movie should live on its owning shard");
+                assertTrue(seen.add(movie.getId()), "A movie should live on only one shard, arrr!");
+                total++;
+            }
+        }
+        assertEquals(unsharded.getAllMovies().size(), total);
+    }
+
+    @Test
+    @DisplayName("Should find any movie from any shard")
+    public void testPointLookupsRouteToOwner() {
+        for (MovieService shard : shards) {
+            for (Movie movie : unsharded.getAllMovies()) {
+                Optional<Movie> found = shard.getMovieById(movie.getId());
+                assertTrue(found.isPresent(), "Should find movie " + movie.getId());
+                assertEquals(movie.getMovieName(), found.get().getMovieName());
+            }
+            assertFalse(shard.getMovieById(999L).isPresent());
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer scatter-gather searches like a single instance")
+    public void testScatterGatherSearch() {
+        for (MovieService shard : shards) {
+            assertEquals(ids(unsharded.searchMovieTreasures("the", null, null)), ids(shard.searchMovieTreasures("the", null, null)));
+            assertEquals(ids(unsharded.searchMovieTreasures(null, null, "drama")), ids(shard.searchMovieTreasures(null, null, "drama")));
+            assertEquals(ids(unsharded.searchMovieTreasures(null, 7L, null)), ids(shard.searchMovieTreasures(null, 7L, null)));
+            assertEquals(ids(unsharded.getAllMovies()), ids(shard.getAllMovies()));
+            assertEquals(unsharded.getAllGenreTreasures(), shard.getAllGenreTreasures());
+        }
+    }
+
+    @Test
+    @DisplayName("Should return partial results, uncached, when a shard times out")
+    public void testSlowShardGivesPartialResults() {
+        slowShards.add(2);
+        MovieService entry = shards.get(0);
+        
+        List<Movie> partial = entry.searchMovieTreasures(null, null, "drama");
+        for (Movie movie : partial) {
+            assertTrue(ShardRouter.shardOf(movie.getId(), SHARDS) != 2, "Slow shard's movies should be missing");
+        }
+        
+        slowShards.clear();
+        List<Movie> full = entry.searchMovieTreasures(null, null, "drama");
+        assertEquals(ids(unsharded.searchMovieTreasures(null, null, "drama")), ids(full),
+            "Partial results should not have been cached");
+    }
+
+    @Test
+    @DisplayName("Should answer a batch like a single instance with one call per shard")
+    public void testBatchSearchFansOutOncePerShard() {
+        MovieService entry = shards.get(0);
+        long localId = 1;
+        while (ShardRouter.shardOf(localId, SHARDS) != 0) {
+            localId++;
+        }
+        long remoteId = 1;
+        while (ShardRouter.shardOf(remoteId, SHARDS) == 0) {
+            remoteId++;
+        }
+        List<SearchCriteria> batch = Arrays.asList(
+            SearchCriteria.of("the", null, null),
+            SearchCriteria.of(null, null, "drama"),
+            SearchCriteria.of(null, localId, null),
+            SearchCriteria.of(null, remoteId, null),
+            SearchCriteria.of(null, 999L, null),
+            SearchCriteria.of(null, null, null),
+            SearchCriteria.of("the", null, null));
+
+        List<List<Movie>> expected = unsharded.searchMovieTreasuresBatch(batch);
+        List<List<Movie>> results = entry.searchMovieTreasuresBatch(batch);
+
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(ids(expected.get(i)), ids(results.get(i)), "Search " + batch.get(i) + " should match, arrr!");
+        }
+        assertEquals(SHARDS - 1, remoteBatches.get(), "The whole batch should go to each other shard once, matey");
+        assertEquals(0, remoteSearches.get(), "No search should be scattered on its own");
+    }
+
+    @Test
+    @DisplayName("Should ask the owning shard for movies similar to one it owns")
+    public void testSimilarMoviesRouteToOwner() {
+        for (Movie movie : unsharded.getAllMovies()) {
+            int owner = ShardRouter.shardOf(movie.getId(), SHARDS);
+            List<Movie> expected = shards.get(owner).getLocalSimilarMovies(movie.getId());
+            assertFalse(expected.isEmpty(), "The owner should know movies similar to " + movie.getId());
+            for (MovieService shard : shards) {
+                assertEquals(ids(expected), ids(shard.getSimilarMovies(movie.getId())),
+                    "Every shard should answer with the owner's similar movies, arrr!");
+            }
+        }
+        assertTrue(shards.get(0).getSimilarMovies(999L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should see a reload on another shard in the next merged search")
+    public void testRemoteReloadIsSeenBySearches() throws Exception {
+        MovieService entry = shards.get(0);
+        long newId = 100;
+        while (ShardRouter.shardOf(newId, SHARDS) != 1) {
+            newId++;
+        }
+        int before = entry.searchMovieTreasures(null, null, "drama").size();
+        assertEquals(before, entry.searchMovieTreasures(null, null, "drama").size());
+
+        JSONArray movies = new JSONArray(new String(Files.readAllBytes(catalogFile), StandardCharsets.UTF_8));
+        movies.put(new JSONObject()
+            .put("id", newId)
+            .put("movieName", "The Late Drama")
+            .put("director", "Captain Director")
+            .put("year", 2024)
+            .put("genre", "Drama")
+            .put("description", "Found after the first hunt")
+            .put("duration", 100)
+            .put("imdbRating", 4.0));
+        Files.write(catalogFile, movies.toString().getBytes(StandardCharsets.UTF_8));
+        shards.get(1).reloadCatalog();
+
+        List<Movie> after = entry.searchMovieTreasures(null, null, "drama");
+        assertEquals(before + 1, after.size(), "Shard 1's new movie should be found without a reload on shard 0, arrr!");
+        assertTrue(ids(after).contains(newId));
+        assertEquals(1, entry.getCatalogVersion(), "Shard 0 never reloaded");
+    }
+
+    private static List<Long> ids(List<Movie> movies) {
+        List<Long> ids = new ArrayList<>();
+        for (Movie movie : movies) {
+            ids.add(movie.getId());
+        }
+        ids.sort(Long::compare);
+        return ids;
+    }
+}
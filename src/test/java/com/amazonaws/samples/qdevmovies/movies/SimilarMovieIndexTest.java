@@ -0,0 +1,74 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for the precomputed similar-movie neighbor lists.
+ */
+@DisplayName("SimilarMovieIndex Tests")
+public class SimilarMovieIndexTest {
+
+    @Test
+    @DisplayName("Should rank movies sharing genre, director and era first")
+    public void testNeighborsRankedBySimilarity() {
+        List<Movie> movies = Arrays.asList(
+            new Movie(1L, "Sea Battle", "Admiral Filmmaker", 2000, "Action/Adventure", "", 120, 4.0),
+            new Movie(2L, "Sea Battle II", "Admiral Filmmaker", 2003, "Action/Adventure", "", 125, 4.0),
+            new Movie(3L, "Quiet Harbour", "Other Director", 1960, "Romance", "", 90, 2.0),
+            new Movie(4L, "Storm Chase", "Someone Else", 2001, "Action/Thriller", "", 110, 4.5));
+        
+        SimilarMovieIndex index = SimilarMovieIndex.build(movies, 2);
+        
+        assertArrayEquals(new int[] {1, 3}, index.neighborsOf(0), "Sequel first, then the other action movie");
+        for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+            int[] neighbors = index.neighborsOf(ordinal);
+            assertEquals(2, neighbors.length, "Should keep top-K neighbors");
+            for (int neighbor : neighbors) {
+                assertNotEquals(ordinal, neighbor, "A movie should not be its own neighbor, arrr!");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should build the same neighbors in parallel for a large catalog")
+    public void testParallelBuildOnLargeCatalog() {
+        List<Movie> movies = new ArrayList<>();
+        String[] genres = {"Drama", "Action/Crime", "Adventure/Sci-Fi", "Crime/Drama", "Drama/Romance"};
+        for (int i = 0; i < 500; i++) {
+            movies.add(new Movie(i + 1, "Movie " + i, "Director " + (i % 37), 1950 + (i % 70),
+                genres[i % genres.length], "", 90 + (i % 60), (i % 10) / 2.0));
+        }
+        
+        SimilarMovieIndex index = SimilarMovieIndex.build(movies, 5);
+        SimilarMovieIndex again = SimilarMovieIndex.build(movies, 5);
+        
+        for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+            int[] neighbors = index.neighborsOf(ordinal);
+            assertEquals(5, neighbors.length);
+            assertArrayEquals(neighbors, again.neighborsOf(ordinal), "Builds should be deterministic");
+            Movie movie = movies.get(ordinal);
+            assertEquals(movie.getGenre(), movies.get(neighbors[0]).getGenre(), "Best match should share the genre");
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve similar movies through the catalog")
+    public void testCatalogFindSimilar() {
+        MovieCatalog catalog = new MovieCatalog(1, new MovieService().getAllMovies(), 3);
+        
+        List<Movie> similar = catalog.findSimilar(1L);
+        assertEquals(3, similar.size());
+        assertTrue(similar.stream().noneMatch(movie -> movie.getId() == 1L));
+        assertTrue(catalog.findSimilar(999L).isEmpty(), "Unknown movies should have no neighbors");
+    }
+}
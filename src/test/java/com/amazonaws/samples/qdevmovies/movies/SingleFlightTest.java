@@ -0,0 +1,96 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ahoy! Tests for coalescing identical treasure hunts that arrive at the same moment.
+ */
+@DisplayName("SingleFlight Tests")
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Should share one computation between concurrent identical calls")
+    public void testConcurrentCallsShareOneComputation() throws Exception {
+        SingleFlight<String, Object> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object treasure = new Object();
+        int callers = 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> flights.execute("drama", () -> {
+                    computations.incrementAndGet();
+                    awaitQuietly(release);
+                    return treasure;
+                })));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flights.stats().getCoalesced() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            for (Future<Object> result : results) {
+                assertSame(treasure, result.get(5, TimeUnit.SECONDS), "Every caller should get the same result");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, computations.get(), "Only one computation should have run, arrr!");
+        assertEquals(1, flights.stats().getExecutions());
+        assertEquals(callers - 1, flights.stats().getCoalesced());
+        assertEquals(0, flights.stats().getInFlight(), "Nothing should stay in flight once finished");
+    }
+
+    @Test
+    @DisplayName("Should run again once the previous computation has finished")
+    public void testSequentialCallsAreNotCoalesced() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+
+        flights.execute("drama", computations::incrementAndGet);
+        flights.execute("drama", computations::incrementAndGet);
+
+        assertEquals(2, computations.get());
+        assertEquals(0, flights.stats().getCoalesced());
+    }
+
+    @Test
+    @DisplayName("Should rethrow the computation's exception and not remember it")
+    public void testExceptionIsPropagated() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+
+        assertThrows(InvalidSearchCriteriaException.class, () -> flights.execute("drama", () -> {
+            throw new InvalidSearchCriteriaException("Blimey!");
+        }));
+        assertEquals(Integer.valueOf(42), flights.execute("drama", () -> 42));
+        assertEquals(0, flights.stats().getInFlight());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for tracing request stages and logging the slow requests.
+ */
+@DisplayName("TracingFilter Tests")
+public class TracingFilterTest {
+
+    @Test
+    @DisplayName("Should log a slow request with its parameters and nested stages")
+    public void testSlowRequestIsLogged() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getTracing().setSlowThresholdMillis(0);
+        SlowRequestLog slowRequestLog = new SlowRequestLog(properties);
+        TracingFilter filter = new TracingFilter(properties, slowRequestLog);
+        MovieService movieService = new MovieService();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/movies/search");
+        request.setParameter("genre", "drama");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try (RequestTrace.Span handler = RequestTrace.span("handler")) {
+                movieService.searchMovieTreasures(null, null, "drama");
+                movieService.getFacetCounts(movieService.getAllMovies());
+            }
+        });
+
+        SlowRequestLog.Snapshot snapshot = slowRequestLog.snapshot();
+        assertEquals(1, snapshot.getRecorded());
+        SlowRequestLog.Entry entry = snapshot.getRequests().get(0);
+        assertEquals("/movies/search", entry.getPath());
+        assertEquals(Collections.singletonList("drama"), entry.getParameters().get("genre"));
+        assertEquals(Arrays.asList("handler", "MovieService.search", "MovieService.filter", "MovieService.facets"),
+            entry.getStages().stream().map(RequestTrace.Stage::getName).collect(Collectors.toList()),
+            "Every stage should be traced in order, arrr!");
+        assertEquals(Arrays.asList(0, 1, 2, 1),
+            entry.getStages().stream().map(RequestTrace.Stage::getDepth).collect(Collectors.toList()));
+        for (RequestTrace.Stage stage : entry.getStages()) {
+            assertTrue(stage.getElapsedNanos() >= 0 && stage.getElapsedNanos() <= entry.getElapsedNanos(),
+                "Every stage should be closed within the request");
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest slow requests and skip fast ones")
+    public void testRingBufferIsBounded() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getTracing().setSlowLogCapacity(3);
+        properties.getTracing().setSlowThresholdMillis(0);
+        SlowRequestLog slowRequestLog = new SlowRequestLog(properties);
+        TracingFilter filter = new TracingFilter(properties, slowRequestLog);
+
+        for (int i = 1; i <= 5; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/movies/" + i + "/details"),
+                new MockHttpServletResponse(), (req, res) -> { });
+        }
+
+        SlowRequestLog.Snapshot snapshot = slowRequestLog.snapshot();
+        assertEquals(5, snapshot.getRecorded());
+        List<String> paths = snapshot.getRequests().stream().map(SlowRequestLog.Entry::getPath).collect(Collectors.toList());
+        assertEquals(Arrays.asList("/movies/5/details", "/movies/4/details", "/movies/3/details"), paths,
+            "Only the three newest should be kept, newest first");
+
+        properties.getTracing().setSlowThresholdMillis(60_000);
+        SlowRequestLog patientLog = new SlowRequestLog(properties);
+        new TracingFilter(properties, patientLog).doFilter(new MockHttpServletRequest("GET", "/movies"),
+            new MockHttpServletResponse(), (req, res) -> { });
+        assertTrue(patientLog.snapshot().getRequests().isEmpty(), "Fast requests stay out of the log, matey");
+    }
+
+    @Test
+    @DisplayName("Should leave warm-up requests out of the slow request log")
+    public void testWarmupIsNotLogged() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getTracing().setSlowThresholdMillis(0);
+        SlowRequestLog slowRequestLog = new SlowRequestLog(properties);
+        TracingFilter filter = new TracingFilter(properties, slowRequestLog);
+
+        MockHttpServletRequest warmup = new MockHttpServletRequest("GET", "/movies/search");
+        warmup.addHeader(WarmupRunner.WARMUP_HEADER, WarmupRunner.WARMUP_TOKEN);
+        filter.doFilter(warmup, new MockHttpServletResponse(), (req, res) -> { });
+        MockHttpServletRequest forged = new MockHttpServletRequest("GET", "/movies");
+        forged.addHeader(WarmupRunner.WARMUP_HEADER, "not-the-token");
+        filter.doFilter(forged, new MockHttpServletResponse(), (req, res) -> { });
+
+        SlowRequestLog.Snapshot snapshot = slowRequestLog.snapshot();
+        assertEquals(1, snapshot.getRecorded(), "Warm-up requests should not be recorded, arrr!");
+        assertEquals("/movies", snapshot.getRequests().get(0).getPath());
+    }
+}
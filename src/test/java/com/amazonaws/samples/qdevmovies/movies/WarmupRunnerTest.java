@@ -0,0 +1,78 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ahoy! Tests for the warm-up traffic and the readiness it gates.
+ */
+@DisplayName("WarmupRunner Tests")
+public class WarmupRunnerTest {
+
+    private MovieProperties properties;
+    private WarmupRunner warmupRunner;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new MovieProperties();
+        properties.getWarmup().setRequests(200);
+        warmupRunner = new WarmupRunner(new MovieService(properties), properties);
+    }
+
+    @Test
+    @DisplayName("Should send the whole synthetic mix and only then report ready")
+    public void testWarmUpMix() {
+        assertEquals(WarmupRunner.State.STARTING, warmupRunner.getState(), "Should not be ready before warm-up, arrr!");
+        List<String> paths = new CopyOnWriteArrayList<>();
+
+        warmupRunner.warmUp(path -> {
+            assertEquals(WarmupRunner.State.WARMING_UP, warmupRunner.getState());
+            paths.add(path);
+            return !path.equals("/movies");
+        });
+
+        assertEquals(WarmupRunner.State.READY, warmupRunner.getState());
+        assertEquals(200, paths.size(), "Every planned request should be sent");
+        assertTrue(paths.stream().anyMatch(path -> path.startsWith("/movies/search?name=")), "Should search by name");
+        assertTrue(paths.stream().anyMatch(path -> path.startsWith("/movies/search?genre=")), "Should search by genre");
+        assertTrue(paths.stream().anyMatch(path -> path.matches("/movies/\\d+/details")), "Should open details pages");
+        assertTrue(paths.contains("/movies"), "Should render the full list");
+
+        WarmupRunner.Status status = warmupRunner.status();
+        assertEquals(200, status.getWarmupRequests());
+        assertEquals(paths.stream().filter("/movies"::equals).count(), status.getWarmupFailures(),
+            "Failed requests should be counted, matey");
+    }
+
+    @Test
+    @DisplayName("Should stop sending at the time limit and still become ready")
+    public void testWarmUpTimeLimit() {
+        properties.getWarmup().setMaxDurationSeconds(0);
+
+        warmupRunner.warmUp(path -> true);
+
+        assertEquals(WarmupRunner.State.READY, warmupRunner.getState());
+        assertEquals(0, warmupRunner.status().getWarmupRequests());
+    }
+
+    @Test
+    @DisplayName("Should be ready straight after startup when warm-up be disabled")
+    public void testDisabledWarmUp() {
+        properties.getWarmup().setEnabled(false);
+
+        warmupRunner.onApplicationReady(
+            new ApplicationReadyEvent(new SpringApplication(), new String[0], new StaticApplicationContext(), null));
+
+        assertEquals(WarmupRunner.State.READY, warmupRunner.getState());
+    }
+}